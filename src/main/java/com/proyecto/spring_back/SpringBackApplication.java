@@ -2,6 +2,8 @@ package com.proyecto.spring_back;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 import io.swagger.v3.oas.annotations.info.Contact;
@@ -10,6 +12,7 @@ import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 
 @SpringBootApplication
+@EnableScheduling
 @OpenAPIDefinition(
     info = @Info(
         title = "API de Usuarios",
@@ -27,8 +30,16 @@ import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 )
 public class SpringBackApplication {
 
+	/** Pasos de arranque que se guardan con -Dapp.startup.profile=true */
+	private static final int STARTUP_STEPS_CAPACITY = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(SpringBackApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringBackApplication.class);
+		if (Boolean.getBoolean("app.startup.profile")) {
+			// Registra cada paso del arranque: resumen en el log (StartupReport) y /actuator/startup
+			application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+		}
+		application.run(args);
 	}
 
 }
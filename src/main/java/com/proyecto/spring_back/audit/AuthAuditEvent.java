@@ -0,0 +1,17 @@
+package com.proyecto.spring_back.audit;
+
+/**
+ * Registro de un intento de login, tal como se guarda (una línea JSON por evento).
+ *
+ * @param ts instante del intento, en milisegundos desde epoch
+ * @param outcome resultado del intento
+ * @param username usuario indicado en la solicitud (puede no existir)
+ * @param ip dirección del cliente
+ * @param detail motivo del fallo, o null si tuvo éxito
+ */
+public record AuthAuditEvent(long ts, Outcome outcome, String username, String ip, String detail) {
+
+    public enum Outcome {
+        SUCCESS, FAILURE
+    }
+}
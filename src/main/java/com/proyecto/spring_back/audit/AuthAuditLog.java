@@ -0,0 +1,284 @@
+package com.proyecto.spring_back.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registro de auditoría de autenticación, asíncrono y de sólo anexado.
+ *
+ * El hilo de la solicitud sólo encola el evento en una cola sin bloqueos. Un hilo
+ * escritor dedicado la vacía por lotes, serializa cada evento como una línea JSON y
+ * la copia a un segmento mapeado en memoria. Los segmentos tienen tamaño fijo
+ * ({@code audit-00000001.log}, {@code audit-00000002.log}, ...); al llenarse se
+ * abre el siguiente y se borran los más antiguos por encima del máximo configurado.
+ * La parte no escrita de un segmento queda a cero, y los lectores se detienen ahí.
+ *
+ * Los datos se sincronizan a disco periódicamente y al cerrar la aplicación, después
+ * de vaciar la cola. Si la cola se llena (disco detenido) los eventos se descartan y
+ * se contabilizan, para no frenar nunca el login.
+ *
+ * Sin eventos, el escritor queda aparcado hasta que {@link #record} lo despierta. Si
+ * muere por un error (por ejemplo, disco lleno al abrir un segmento), los eventos
+ * siguientes se descartan sin encolarse y el indicador de salud pasa a DOWN.
+ */
+@Component
+public class AuthAuditLog implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthAuditLog.class);
+
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".log";
+    private static final int BATCH_SIZE = 512;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int queueCapacity;
+    private final long forceIntervalNanos;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ConcurrentLinkedQueue<AuthAuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Thread writer;
+    // El escritor está (o va a estar) aparcado: record() debe despertarlo
+    private volatile boolean idle;
+    // Error que detuvo el escritor; a partir de ahí no se encola nada
+    private volatile RuntimeException failure;
+
+    // Estado del segmento actual; sólo lo toca el hilo escritor
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean dirty;
+    private long lastForce;
+
+    @Autowired
+    public AuthAuditLog(
+            @Value("${app.audit.directory:logs/audit}") String directory,
+            @Value("${app.audit.segment-size-bytes:16777216}") int segmentSize,
+            @Value("${app.audit.max-segments:20}") int maxSegments,
+            @Value("${app.audit.queue-capacity:100000}") int queueCapacity,
+            @Value("${app.audit.force-interval-ms:1000}") long forceIntervalMillis) {
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.queueCapacity = queueCapacity;
+        this.forceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(forceIntervalMillis);
+    }
+
+    /**
+     * Encola un evento. Es el único coste que paga el login.
+     *
+     * @return false si la cola estaba llena y el evento se descartó
+     */
+    public boolean record(AuthAuditEvent event) {
+        if (failure != null) {
+            dropped.increment();
+            return false;
+        }
+        if (pending.incrementAndGet() > queueCapacity) {
+            pending.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(event);
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    public void recordSuccess(String username, String ip) {
+        record(new AuthAuditEvent(System.currentTimeMillis(), AuthAuditEvent.Outcome.SUCCESS, username, ip, null));
+    }
+
+    public void recordFailure(String username, String ip, String detail) {
+        record(new AuthAuditEvent(System.currentTimeMillis(), AuthAuditEvent.Outcome.FAILURE, username, ip, detail));
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = AuthAuditReader.listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            openSegment(AuthAuditReader.segmentIndex(segments.get(segments.size() - 1)));
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "auth-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Detiene el escritor tras vaciar la cola y sincroniza el segmento a disco.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void runWriter() {
+        try {
+            while (running || !queue.isEmpty()) {
+                int count = 0;
+                AuthAuditEvent event;
+                while (count < BATCH_SIZE && (event = queue.poll()) != null) {
+                    pending.decrementAndGet();
+                    append(event);
+                    count++;
+                }
+                long now = System.nanoTime();
+                if (dirty && (count == 0 || now - lastForce >= forceIntervalNanos)) {
+                    force(now);
+                }
+                if (count == 0 && running) {
+                    // Se anuncia antes de comprobar la cola: un record() concurrente o ve
+                    // idle y despierta al escritor, o su evento ya está en la cola
+                    idle = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    idle = false;
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            log.error("El escritor de auditoría se detuvo por un error; los eventos se descartan", e);
+            // Lo encolado ya no se escribirá
+            int discarded = 0;
+            while (queue.poll() != null) {
+                discarded++;
+            }
+            pending.addAndGet(-discarded);
+            dropped.add(discarded);
+        } finally {
+            force(System.nanoTime());
+            closeChannel();
+        }
+    }
+
+    private void append(AuthAuditEvent event) {
+        byte[] line;
+        try {
+            line = mapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar el evento de auditoría {}", event, e);
+            return;
+        }
+        int length = line.length + 1;
+        if (length > segmentSize) {
+            dropped.increment();
+            return;
+        }
+        if (buffer.remaining() < length) {
+            force(System.nanoTime());
+            openSegment(segmentIndex + 1);
+        }
+        buffer.put(line);
+        buffer.put((byte) '\n');
+        written.increment();
+        dirty = true;
+    }
+
+    private void force(long now) {
+        if (buffer != null && dirty) {
+            buffer.force();
+            dirty = false;
+        }
+        lastForce = now;
+    }
+
+    private void openSegment(long index) {
+        closeChannel();
+        Path path = directory.resolve(AuthAuditReader.segmentName(index));
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            // Un segmento reabierto continúa tras el último byte escrito
+            buffer.position(AuthAuditReader.writtenLength(buffer));
+            segmentIndex = index;
+            deleteOldSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el segmento de auditoría " + path, e);
+        }
+    }
+
+    private void deleteOldSegments() throws IOException {
+        List<Path> segments = AuthAuditReader.listSegments(directory);
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Error al cerrar el segmento de auditoría", e);
+            }
+            channel = null;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /** DOWN si el escritor se detuvo por un error: los eventos se están perdiendo. */
+    @Override
+    public Health health() {
+        Health.Builder builder = failure != null
+                ? Health.down().withDetail("error", String.valueOf(failure.getMessage()))
+                : Health.up();
+        return builder.withDetail("written", getWrittenCount()).withDetail("dropped", getDroppedCount())
+                .withDetail("pending", getPendingCount()).build();
+    }
+}
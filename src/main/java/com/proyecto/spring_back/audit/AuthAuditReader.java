@@ -0,0 +1,157 @@
+package com.proyecto.spring_back.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lectura y consulta de los segmentos de auditoría escritos por {@link AuthAuditLog}.
+ *
+ * También se puede usar sin arrancar la aplicación, desde la línea de comandos:
+ * <pre>
+ * java -Dloader.main=com.proyecto.spring_back.audit.AuthAuditReader \
+ *      -cp spring-back.jar org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      logs/audit username=admin outcome=FAILURE from=1700000000000 limit=50
+ * </pre>
+ * que imprime las líneas JSON coincidentes en orden cronológico.
+ */
+public final class AuthAuditReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private AuthAuditReader() {
+    }
+
+    /**
+     * Devuelve los últimos {@code limit} eventos que cumplen el filtro, en orden cronológico.
+     */
+    public static List<AuthAuditEvent> query(Path directory, Predicate<AuthAuditEvent> filter, int limit)
+            throws IOException {
+        return query(listSegments(directory), filter, limit);
+    }
+
+    static List<AuthAuditEvent> query(List<Path> segments, Predicate<AuthAuditEvent> filter, int limit)
+            throws IOException {
+        Deque<AuthAuditEvent> matches = new ArrayDeque<>(Math.min(limit, 1024));
+        for (Path segment : segments) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                readLines(buffer, event -> {
+                    if (filter.test(event)) {
+                        if (matches.size() == limit) {
+                            matches.removeFirst();
+                        }
+                        matches.addLast(event);
+                    }
+                });
+            } catch (NoSuchFileException e) {
+                // La rotación de AuthAuditLog borró el segmento después de listarlo: sus
+                // eventos ya no se conservan
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Construye un filtro a partir de criterios opcionales (null = sin restricción).
+     */
+    public static Predicate<AuthAuditEvent> filter(String username, AuthAuditEvent.Outcome outcome, Long from, Long to) {
+        return event -> (username == null || username.equals(event.username()))
+                && (outcome == null || outcome == event.outcome())
+                && (from == null || event.ts() >= from)
+                && (to == null || event.ts() < to);
+    }
+
+    private static void readLines(ByteBuffer buffer, java.util.function.Consumer<AuthAuditEvent> consumer)
+            throws IOException {
+        int limit = writtenLength(buffer);
+        int start = 0;
+        byte[] line = new byte[256];
+        for (int i = 0; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                int length = i - start;
+                if (line.length < length) {
+                    line = new byte[length * 2];
+                }
+                buffer.get(start, line, 0, length);
+                consumer.accept(MAPPER.readValue(line, 0, length, AuthAuditEvent.class));
+                start = i + 1;
+            }
+        }
+        // Una línea sin '\n' final está a medio escribir y se ignora
+    }
+
+    /** Bytes escritos en un segmento: todo lo anterior al primer byte a cero. */
+    static int writtenLength(ByteBuffer buffer) {
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) == 0) {
+                return i;
+            }
+        }
+        return buffer.limit();
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(AuthAuditLog.SEGMENT_PREFIX) && name.endsWith(AuthAuditLog.SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    static String segmentName(long index) {
+        return String.format("%s%08d%s", AuthAuditLog.SEGMENT_PREFIX, index, AuthAuditLog.SEGMENT_SUFFIX);
+    }
+
+    static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(AuthAuditLog.SEGMENT_PREFIX.length(),
+                name.length() - AuthAuditLog.SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Consulta desde la línea de comandos: {@code <directorio> [username=..] [outcome=..] [from=..] [to=..] [limit=..]}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Uso: AuthAuditReader <directorio> [username=..] [outcome=SUCCESS|FAILURE] [from=ms] [to=ms] [limit=n]");
+            System.exit(1);
+        }
+        String username = null;
+        AuthAuditEvent.Outcome outcome = null;
+        Long from = null;
+        Long to = null;
+        int limit = 100;
+        for (int i = 1; i < args.length; i++) {
+            String[] pair = args[i].split("=", 2);
+            switch (pair[0]) {
+                case "username" -> username = pair[1];
+                case "outcome" -> outcome = AuthAuditEvent.Outcome.valueOf(pair[1].toUpperCase());
+                case "from" -> from = Long.parseLong(pair[1]);
+                case "to" -> to = Long.parseLong(pair[1]);
+                case "limit" -> limit = Integer.parseInt(pair[1]);
+                default -> throw new IllegalArgumentException("Criterio desconocido: " + pair[0]);
+            }
+        }
+        for (AuthAuditEvent event : query(Path.of(args[0]), filter(username, outcome, from, to), limit)) {
+            System.out.println(MAPPER.writeValueAsString(event));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.proyecto.spring_back.auth;
+
+import static com.proyecto.spring_back.auth.TokenJwtConfig.SECRET_KEY;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.spring_back.auth.filter.SimpleGrantedAuthorityJsonCreator;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * Emisión y validación de los JWT de la aplicación.
+ *
+ * Lo usan JwtAuthenticationFilter (login), JwtValidationFilter (cada petición) y el
+ * calentamiento de arranque, que así ejercita exactamente el mismo código. El parser y
+ * el ObjectMapper de los roles son inmutables y se comparten entre hilos.
+ */
+public final class JwtTokens {
+
+    /** Validez del token: 1 hora */
+    public static final long EXPIRATION_MS = 3600000;
+
+    private static final JwtParser PARSER = Jwts.parser().verifyWith(SECRET_KEY).build();
+
+    // Los roles viajan en el claim "authorities" como JSON: [{"authority":"ROLE_USER"}]
+    private static final ObjectMapper AUTHORITIES_MAPPER = new ObjectMapper()
+            .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class);
+
+    private JwtTokens() {
+    }
+
+    /**
+     * Construye el token firmado de un usuario autenticado.
+     */
+    public static String issue(String username, Collection<? extends GrantedAuthority> roles)
+            throws JsonProcessingException {
+        boolean isAdmin = roles.stream().anyMatch(r -> r.getAuthority().equals("ROLE_ADMIN"));
+
+        // Crea los claims (reclamaciones) del token JWT
+        Claims claims = Jwts
+                .claims()
+                .add("authorities", AUTHORITIES_MAPPER.writeValueAsString(roles)) // Convierte roles a JSON
+                .add("username", username) // Agrega el nombre de usuario
+                .add("isAdmin", isAdmin) // Agrega el booleano isAdmin
+                .build();
+
+        // Construye el token JWT con toda la información necesaria
+        return Jwts.builder()
+                .subject(username) // Sujeto del token (nombre de usuario)
+                .claims(claims) // Claims personalizados (roles y username)
+                .signWith(SECRET_KEY) // Firma el token con la clave secreta
+                .issuedAt(new Date()) // Fecha de emisión
+                .expiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+                .compact(); // Genera el token compacto
+    }
+
+    /**
+     * Indica si el token tiene firma válida y no ha expirado, sin leer sus roles.
+     */
+    public static boolean isValid(String token) {
+        try {
+            PARSER.parseSignedClaims(token);
+            return true;
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Verifica la firma del token y devuelve la autenticación con el usuario y sus roles.
+     *
+     * @throws JwtException si el token no es válido o ha expirado
+     * @throws IOException si el claim de roles no se puede leer
+     */
+    public static UsernamePasswordAuthenticationToken parse(String token) throws IOException {
+        // Claims contiene toda la información del token (username, roles, expiración, etc.)
+        Claims claims = PARSER.parseSignedClaims(token).getPayload();
+        Object authoritiesClaims = claims.get("authorities");
+        Collection<? extends GrantedAuthority> roles = Arrays.asList(AUTHORITIES_MAPPER
+                .readValue(authoritiesClaims.toString().getBytes(), SimpleGrantedAuthority[].class));
+        // El password se establece como null ya que no es necesario en este punto
+        return new UsernamePasswordAuthenticationToken(claims.getSubject(), null, roles);
+    }
+}
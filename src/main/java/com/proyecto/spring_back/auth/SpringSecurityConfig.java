@@ -15,11 +15,16 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.cors.CorsConfiguration;
 import java.util.Arrays;
+import jakarta.servlet.DispatcherType;
 import org.springframework.web.filter.CorsFilter;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.core.Ordered;
+import com.proyecto.spring_back.audit.AuthAuditLog;
 import com.proyecto.spring_back.auth.filter.JwtAuthenticationFilter;
+import com.proyecto.spring_back.auth.lockout.LoginAttemptTracker;
 import com.proyecto.spring_back.auth.filter.JwtValidationFilter;
+import com.proyecto.spring_back.auth.filter.RateLimitFilter;
+import com.proyecto.spring_back.auth.ratelimit.RateLimiter;
 
 /**
  * Configuración principal de Spring Security para la aplicación de usuarios.
@@ -35,6 +40,24 @@ public class SpringSecurityConfig {
     @Autowired
     private AuthenticationConfiguration authenticationConfiguration;
 
+    /**
+     * Limitador de tasa compartido por los filtros de IP y de usuario.
+     */
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    /**
+     * Registro de auditoría de los intentos de login.
+     */
+    @Autowired
+    private AuthAuditLog authAuditLog;
+
+    /**
+     * Contador de logins fallidos para el bloqueo progresivo.
+     */
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+
     /**
      * Bean que proporciona el AuthenticationManager de Spring Security.
      * Este bean es necesario para el filtro JWT personalizado.
@@ -68,22 +91,42 @@ public class SpringSecurityConfig {
     SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
 
         return http.authorizeHttpRequests(authz -> authz
+                // Los despachos asíncronos (flujo SSE) ya se autorizaron en la solicitud original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Rutas de documentación OpenAPI/Swagger públicas
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                // Health checks públicos para el balanceador; el resto de actuator sólo ADMIN
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+                // Filtrar los listados por rol revela quién es administrador: sólo ADMIN
+                .requestMatchers(request -> "GET".equals(request.getMethod()) && request.getParameter("role") != null
+                        && (request.getRequestURI().equals("/api/users") || request.getRequestURI().startsWith("/api/users/page/")))
+                        .hasRole("ADMIN")
                 // Endpoints públicos - accesibles sin autenticación
                 .requestMatchers(HttpMethod.GET, "/api/users", "/api/users/page/{page}").permitAll()
+                // Disponibilidad para el formulario de registro (antes que /api/users/{id})
+                .requestMatchers(HttpMethod.GET, "/api/users/availability").permitAll()
                 // Endpoints que requieren rol USER o ADMIN
+                .requestMatchers(HttpMethod.GET, "/api/users/changes").hasAnyRole("USER", "ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/users/stats").hasAnyRole("USER", "ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/users/{id}").hasAnyRole("USER", "ADMIN")
+                .requestMatchers(HttpMethod.POST, "/api/users/lookup").hasAnyRole("USER", "ADMIN")
                 // Endpoints que requieren rol ADMIN exclusivamente
                 .requestMatchers(HttpMethod.POST, "/api/users").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.PUT, "/api/users/{id}").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.DELETE, "/api/users/{id}").hasRole("ADMIN")
+                // Endpoints de administración (auditoría, diagnóstico)
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 // Cualquier otra petición requiere autenticación
                 .anyRequest().authenticated())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                // Limita por IP antes del login para no gastar BCrypt ni JDBC con clientes abusivos
+                .addFilterBefore(new RateLimitFilter(rateLimiter, RateLimitFilter.Scope.CLIENT_IP), JwtAuthenticationFilter.class)
                 // Agrega el filtro JWT personalizado para la autenticación
-                .addFilter(new JwtAuthenticationFilter(authenticationManager()))
+                .addFilter(new JwtAuthenticationFilter(authenticationManager(), authAuditLog, loginAttemptTracker))
                 .addFilter(new JwtValidationFilter(authenticationManager()))
+                // Limita por usuario una vez validado el token
+                .addFilterAfter(new RateLimitFilter(rateLimiter, RateLimitFilter.Scope.USER), JwtValidationFilter.class)
                 // Deshabilita CSRF ya que se usa JWT (stateless)
                 .csrf(config -> config.disable())
                 // Configura la gestión de sesiones como stateless (sin estado)
@@ -97,7 +140,7 @@ public class SpringSecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:4200"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Idempotency-Key", "Last-Event-ID"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
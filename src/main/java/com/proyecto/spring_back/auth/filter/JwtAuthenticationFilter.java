@@ -4,8 +4,13 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import com.proyecto.spring_back.audit.AuthAuditLog;
+import com.proyecto.spring_back.auth.lockout.LoginAttemptTracker;
+import com.proyecto.spring_back.auth.lockout.LoginLockedException;
 import com.proyecto.spring_back.models.LoginRequest;
+import com.proyecto.spring_back.resilience.DeadlineFilter;
 import static com.proyecto.spring_back.auth.TokenJwtConfig.*;
+import com.proyecto.spring_back.auth.JwtTokens;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -15,13 +20,12 @@ import java.io.IOException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import org.springframework.security.core.AuthenticationException;
-import io.jsonwebtoken.Jwts;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Collection;
 import org.springframework.security.core.GrantedAuthority;
-import io.jsonwebtoken.Claims;
 
 /**
  * Filtro de autenticación JWT que extiende UsernamePasswordAuthenticationFilter.
@@ -33,12 +37,26 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
     /** Gestor de autenticación que valida las credenciales del usuario */
     private AuthenticationManager authenticationManager;
 
+    /** Registro de auditoría donde se anotan los intentos de login */
+    private AuthAuditLog auditLog;
+
+    /** Contador de fallos que bloquea temporalmente usuarios e IPs atacados */
+    private LoginAttemptTracker loginAttemptTracker;
+
+    /** Atributo de la solicitud con el usuario indicado, para auditar los fallos */
+    private static final String ATTEMPTED_USERNAME = JwtAuthenticationFilter.class.getName() + ".username";
+
     /**
      * Constructor que recibe el AuthenticationManager para validar credenciales
      * @param authenticationManager Gestor de autenticación de Spring Security
+     * @param auditLog Registro de auditoría de los intentos de login
+     * @param loginAttemptTracker Contador de fallos para el bloqueo progresivo
      */
-    public JwtAuthenticationFilter(AuthenticationManager authenticationManager) {
+    public JwtAuthenticationFilter(AuthenticationManager authenticationManager, AuthAuditLog auditLog,
+            LoginAttemptTracker loginAttemptTracker) {
         this.authenticationManager = authenticationManager;
+        this.auditLog = auditLog;
+        this.loginAttemptTracker = loginAttemptTracker;
     }
 
     /**
@@ -70,6 +88,13 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         } catch (IOException e) {
             e.printStackTrace();
         }
+        request.setAttribute(ATTEMPTED_USERNAME, username);
+
+        // Usuario o IP bloqueados: se rechaza sin consultar la base de datos ni calcular BCrypt
+        long lockedNanos = loginAttemptTracker.lockRemaining(username, request.getRemoteAddr());
+        if (lockedNanos > 0) {
+            throw new LoginLockedException(Math.max(1, (long) Math.ceil(lockedNanos / (double) TimeUnit.SECONDS.toNanos(1))));
+        }
 
         // Crea un token de autenticación con las credenciales extraídas
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username,
@@ -98,26 +123,11 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         org.springframework.security.core.userdetails.User user = (org.springframework.security.core.userdetails.User) authResult
                 .getPrincipal();
         String username = user.getUsername();
-        // Obtiene los roles/autoridades del usuario autenticado
+        auditLog.recordSuccess(username, request.getRemoteAddr());
+        loginAttemptTracker.recordSuccess(username);
+        // Obtiene los roles/autoridades del usuario autenticado y construye el token firmado
         Collection<? extends GrantedAuthority> roles = authResult.getAuthorities();
-        boolean isAdmin = roles.stream().anyMatch(r -> r.getAuthority().equals("ROLE_ADMIN"));
-
-        // Crea los claims (reclamaciones) del token JWT
-        Claims claims = Jwts
-                .claims()
-                .add("authorities", new ObjectMapper().writeValueAsString(roles)) // Convierte roles a JSON
-                .add("username", username) // Agrega el nombre de usuario
-                .add("isAdmin", isAdmin) // Agrega el booleano isAdmin
-                .build();
-
-        // Construye el token JWT con toda la información necesaria
-        String jwt = Jwts.builder()
-                .subject(username) // Sujeto del token (nombre de usuario)
-                .claims(claims) // Claims personalizados (roles y username)
-                .signWith(SECRET_KEY) // Firma el token con la clave secreta
-                .issuedAt(new Date()) // Fecha de emisión
-                .expiration(new Date(System.currentTimeMillis() + 3600000)) // Expira en 1 hora (3600000 ms)
-                .compact(); // Genera el token compacto
+        String jwt = JwtTokens.issue(username, roles);
 
         // Agrega el token JWT al header de autorización de la respuesta
         response.addHeader(HEADER_AUTHORIZATION, PREFIX_TOKEN + jwt);
@@ -149,16 +159,35 @@ public class JwtAuthenticationFilter extends UsernamePasswordAuthenticationFilte
             AuthenticationException failed) throws IOException, ServletException {
         // La implementación por defecto de Spring Security maneja la respuesta de error
         // Se puede personalizar aquí si se desea un comportamiento específico
+        String username = (String) request.getAttribute(ATTEMPTED_USERNAME);
+        auditLog.recordFailure(username, request.getRemoteAddr(), failed.getMessage());
+
         Map<String, Object> errorDetails = new HashMap<>();
         errorDetails.put("timestamp", new Date());
-        errorDetails.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-        errorDetails.put("error", "Unauthorized");
         errorDetails.put("message", failed.getMessage());
         errorDetails.put("path", request.getServletPath());
 
+        if (failed instanceof LoginLockedException locked) {
+            // Los intentos durante el bloqueo no cuentan como fallos: no lo prolongan
+            errorDetails.put("status", 429);
+            errorDetails.put("error", "Too Many Requests");
+            response.setHeader("Retry-After", String.valueOf(locked.getRetryAfterSeconds()));
+            response.setStatus(429);
+        } else if (DeadlineFilter.isDeadlineExceeded(failed)) {
+            // La consulta del usuario agotó el plazo: no dice nada de la contraseña, no cuenta como fallo
+            errorDetails.put("status", HttpServletResponse.SC_GATEWAY_TIMEOUT);
+            errorDetails.put("error", "Gateway Timeout");
+            errorDetails.put("message", "La solicitud superó su plazo de ejecución");
+            response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        } else {
+            loginAttemptTracker.recordFailure(username, request.getRemoteAddr());
+            errorDetails.put("status", HttpServletResponse.SC_UNAUTHORIZED);
+            errorDetails.put("error", "Unauthorized");
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        }
+
         response.getWriter().write(new ObjectMapper().writeValueAsString(errorDetails));
         response.setContentType(CONTENT_TYPE);
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         
     }
 
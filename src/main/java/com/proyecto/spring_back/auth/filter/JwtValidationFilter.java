@@ -7,15 +7,10 @@ import java.util.Map;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import static com.proyecto.spring_back.auth.TokenJwtConfig.*;
-import io.jsonwebtoken.Claims;
+import com.proyecto.spring_back.auth.JwtTokens;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import java.util.Arrays;
-import java.util.Collection;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.servlet.FilterChain;
@@ -77,28 +72,9 @@ public class JwtValidationFilter extends BasicAuthenticationFilter {
         String token = header.replace(PREFIX_TOKEN, "");
         
         try {
-            // Verifica y parsea el token JWT usando la clave secreta
-            // Claims contiene toda la información del token (username, roles, expiración, etc.)
-            Claims claims = Jwts.parser().verifyWith(SECRET_KEY).build().parseSignedClaims(token).getPayload();
-            
-            // Extrae el nombre de usuario del token (subject)
-            String username = claims.getSubject();
-            // String username2 = (String) claims.get("username"); // Forma alternativa de obtener username
-            
-            // Extrae los roles/autoridades del token
-            Object authoritiesClaims = claims.get("authorities");
+            // Verifica la firma del token y extrae el usuario (subject) y sus roles (claim "authorities")
+            UsernamePasswordAuthenticationToken authenticationToken = JwtTokens.parse(token);
 
-            // Convierte los roles del token en objetos GrantedAuthority de Spring Security
-            // Usa ObjectMapper con un mixin personalizado para mapear correctamente los roles
-            Collection<? extends GrantedAuthority> roles = Arrays.asList(new ObjectMapper()
-            .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class)
-                    .readValue(authoritiesClaims.toString().getBytes(), SimpleGrantedAuthority[].class));
-
-            // Crea un token de autenticación con el usuario y sus roles
-            // El password se establece como null ya que no es necesario en este punto
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username, null, 
-                    roles);
-            
             // Establece la autenticación en el contexto de seguridad de Spring
             // Esto permite que otros componentes accedan a la información del usuario autenticado
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
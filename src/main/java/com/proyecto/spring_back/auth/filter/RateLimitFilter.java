@@ -0,0 +1,112 @@
+package com.proyecto.spring_back.auth.filter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.spring_back.auth.ratelimit.RateLimiter;
+import static com.proyecto.spring_back.auth.TokenJwtConfig.*;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtro de limitación de tasa por cliente.
+ *
+ * Se registra dos veces en la cadena de seguridad:
+ * - {@link Scope#CLIENT_IP}: antes de {@link JwtAuthenticationFilter}, limita por IP
+ *   todas las solicitudes (incluido /login) antes de gastar BCrypt o JDBC.
+ * - {@link Scope#USER}: después de {@link JwtValidationFilter}, limita por nombre de
+ *   usuario autenticado, ya con la firma del token verificada.
+ *
+ * Las solicitudes rechazadas reciben 429 con la cabecera Retry-After.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /** Dimensión por la que se agrupan los buckets. */
+    public enum Scope {
+        CLIENT_IP, USER
+    }
+
+    private final RateLimiter rateLimiter;
+    private final Scope scope;
+
+    /**
+     * @param rateLimiter limitador compartido con los buckets de todos los clientes
+     * @param scope dimensión que aplica esta instancia del filtro
+     */
+    public RateLimitFilter(RateLimiter rateLimiter, Scope scope) {
+        this.rateLimiter = rateLimiter;
+        this.scope = scope;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        if (!rateLimiter.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RateLimiter.Category category = RateLimiter.categorize(request.getMethod(), request.getServletPath());
+        String key = resolveKey(request, category);
+        if (key == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(category, key);
+        if (waitNanos > 0) {
+            reject(response, waitNanos);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Obtiene la clave del bucket, o null si esta instancia no aplica a la solicitud
+     * (ej: peticiones anónimas o /login en el ámbito por usuario).
+     */
+    private String resolveKey(HttpServletRequest request, RateLimiter.Category category) {
+        if (scope == Scope.CLIENT_IP) {
+            return "ip:" + request.getRemoteAddr();
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (category == RateLimiter.Category.LOGIN || authentication == null
+                || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return "user:" + authentication.getName();
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Too Many Requests");
+        body.put("message", "Demasiadas solicitudes, intente de nuevo en " + retryAfterSeconds + " segundos");
+
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(CONTENT_TYPE);
+        response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+    }
+
+    /**
+     * Cada ámbito necesita su propia marca de "ya filtrado"; de lo contrario la segunda
+     * instancia de esta clase se saltaría la solicitud.
+     */
+    @Override
+    protected String getAlreadyFilteredAttributeName() {
+        return super.getAlreadyFilteredAttributeName() + "." + scope.name();
+    }
+}
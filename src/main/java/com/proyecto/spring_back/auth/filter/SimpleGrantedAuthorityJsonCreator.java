@@ -21,7 +21,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * - Permite reconstruir correctamente los objetos SimpleGrantedAuthority
  * 
  * USO:
- * - Se configura en JwtValidationFilter como mixin:
+ * - Se configura en JwtTokens como mixin:
  *   .addMixIn(SimpleGrantedAuthority.class, SimpleGrantedAuthorityJsonCreator.class)
  * - No se instancia directamente, solo se usa como configuración de Jackson
  * 
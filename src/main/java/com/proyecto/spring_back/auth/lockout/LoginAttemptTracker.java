@@ -0,0 +1,270 @@
+package com.proyecto.spring_back.auth.lockout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contador en memoria de logins fallidos por usuario y por IP, con bloqueo progresivo.
+ *
+ * Cada clave cuenta sus fallos en una ventana deslizante aproximada (ventana actual
+ * más la anterior ponderada por el tiempo que aún solapa). Al alcanzar el umbral la
+ * clave se bloquea durante {@code base * 2^(nivel-1)}, con un máximo; cada bloqueo
+ * sube el nivel y el nivel vuelve a cero tras un periodo sin fallos. Mientras dura el
+ * bloqueo el login se rechaza antes de llegar al AuthenticationManager, así que no se
+ * consulta la base de datos ni se calcula BCrypt.
+ *
+ * El mapa concurrente reparte las claves entre segmentos y cada entrada se actualiza
+ * bajo su propio monitor, de modo que sólo compiten los intentos sobre la misma clave.
+ * No se escribe nada en la base de datos; las entradas sin actividad se eliminan
+ * periódicamente.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    /** Tipo de clave controlada. */
+    public enum KeyType {
+        USERNAME, IP
+    }
+
+    /**
+     * Estado visible de una clave, para el endpoint de administración.
+     *
+     * @param type tipo de clave
+     * @param key usuario o IP
+     * @param failures fallos estimados en la ventana actual
+     * @param level nivel de bloqueo acumulado
+     * @param lockedForSeconds segundos de bloqueo restantes (0 si no está bloqueada)
+     */
+    public record AttemptState(KeyType type, String key, long failures, int level, long lockedForSeconds) {
+    }
+
+    /** Política de una clase de clave. */
+    record Policy(int maxFailures, long windowNanos) {
+    }
+
+    private static final class Entry {
+        long windowStart;
+        int currentCount;
+        int previousCount;
+        int level;
+        long lockedUntil;
+        long lastFailure;
+
+        Entry(long now) {
+            this.windowStart = now;
+            this.lockedUntil = now;
+            this.lastFailure = now;
+        }
+
+        /** Avanza la ventana y devuelve los fallos estimados en los últimos windowNanos. */
+        double estimate(long now, long windowNanos) {
+            long elapsed = now - windowStart;
+            if (elapsed >= 2 * windowNanos) {
+                previousCount = 0;
+                currentCount = 0;
+                windowStart = now;
+                elapsed = 0;
+            } else if (elapsed >= windowNanos) {
+                previousCount = currentCount;
+                currentCount = 0;
+                windowStart += windowNanos;
+                elapsed -= windowNanos;
+            }
+            double overlap = 1.0 - (double) elapsed / windowNanos;
+            return previousCount * overlap + currentCount;
+        }
+    }
+
+    private final boolean enabled;
+    private final Policy usernamePolicy;
+    private final Policy ipPolicy;
+    private final long baseLockNanos;
+    private final long maxLockNanos;
+    private final long levelResetNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, Entry> usernames = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> ips = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoginAttemptTracker(
+            @Value("${app.login-lockout.enabled:true}") boolean enabled,
+            @Value("${app.login-lockout.username.max-failures:5}") int usernameMaxFailures,
+            @Value("${app.login-lockout.ip.max-failures:20}") int ipMaxFailures,
+            @Value("${app.login-lockout.window-seconds:300}") long windowSeconds,
+            @Value("${app.login-lockout.base-lock-seconds:30}") long baseLockSeconds,
+            @Value("${app.login-lockout.max-lock-seconds:900}") long maxLockSeconds,
+            @Value("${app.login-lockout.level-reset-seconds:3600}") long levelResetSeconds,
+            @Value("${app.login-lockout.max-entries:100000}") int maxEntries) {
+        this(enabled,
+                new Policy(usernameMaxFailures, TimeUnit.SECONDS.toNanos(windowSeconds)),
+                new Policy(ipMaxFailures, TimeUnit.SECONDS.toNanos(windowSeconds)),
+                TimeUnit.SECONDS.toNanos(baseLockSeconds), TimeUnit.SECONDS.toNanos(maxLockSeconds),
+                TimeUnit.SECONDS.toNanos(levelResetSeconds), maxEntries, System::nanoTime);
+    }
+
+    LoginAttemptTracker(boolean enabled, Policy usernamePolicy, Policy ipPolicy, long baseLockNanos,
+            long maxLockNanos, long levelResetNanos, int maxEntries, LongSupplier clock) {
+        this.enabled = enabled;
+        this.usernamePolicy = usernamePolicy;
+        this.ipPolicy = ipPolicy;
+        this.baseLockNanos = baseLockNanos;
+        this.maxLockNanos = maxLockNanos;
+        this.levelResetNanos = levelResetNanos;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Tiempo de bloqueo restante para un intento de login.
+     *
+     * @return 0 si se permite comprobar las credenciales; si no, nanosegundos restantes
+     */
+    public long lockRemaining(String username, String ip) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        return Math.max(remaining(usernames, normalize(username), now), remaining(ips, ip, now));
+    }
+
+    private static long remaining(ConcurrentHashMap<String, Entry> entries, String key, long now) {
+        Entry entry = key == null ? null : entries.get(key);
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry) {
+            return Math.max(0, entry.lockedUntil - now);
+        }
+    }
+
+    /** Anota un fallo de credenciales para el usuario y la IP. */
+    public void recordFailure(String username, String ip) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        String user = normalize(username);
+        if (user != null) {
+            fail(usernames, user, usernamePolicy, now);
+        }
+        if (ip != null) {
+            fail(ips, ip, ipPolicy, now);
+        }
+    }
+
+    private void fail(ConcurrentHashMap<String, Entry> entries, String key, Policy policy, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                // Mapa lleno (p. ej. rociado de usuarios inventados): no se rastrea la
+                // clave nueva; el límite por IP y el rate limiter siguen actuando
+                return;
+            }
+            entry = entries.computeIfAbsent(key, k -> new Entry(now));
+        }
+        synchronized (entry) {
+            if (entry.level > 0 && now - entry.lastFailure >= levelResetNanos) {
+                entry.level = 0;
+            }
+            entry.lastFailure = now;
+            if (entry.estimate(now, policy.windowNanos()) + 1 >= policy.maxFailures()) {
+                entry.level++;
+                entry.lockedUntil = now + lockDuration(entry.level);
+                entry.previousCount = 0;
+                entry.currentCount = 0;
+                entry.windowStart = now;
+            } else {
+                entry.currentCount++;
+            }
+        }
+    }
+
+    private long lockDuration(int level) {
+        int shift = Math.min(level - 1, 30);
+        long duration = baseLockNanos << shift;
+        return duration <= 0 || duration > maxLockNanos ? maxLockNanos : duration;
+    }
+
+    /**
+     * Un login correcto borra el historial del usuario. El de la IP se mantiene para
+     * que un atacante no pueda limpiarlo entrando con una cuenta propia.
+     */
+    public void recordSuccess(String username) {
+        String user = normalize(username);
+        if (user != null) {
+            usernames.remove(user);
+        }
+    }
+
+    /** Desbloquea una clave manualmente. */
+    public boolean clear(KeyType type, String key) {
+        return type == KeyType.USERNAME ? usernames.remove(normalize(key)) != null : ips.remove(key) != null;
+    }
+
+    /**
+     * Estado de las claves con fallos o bloqueos, las más bloqueadas primero.
+     */
+    public List<AttemptState> snapshot(int limit) {
+        long now = clock.getAsLong();
+        List<AttemptState> states = new ArrayList<>();
+        collect(states, KeyType.USERNAME, usernames, usernamePolicy, now);
+        collect(states, KeyType.IP, ips, ipPolicy, now);
+        states.sort(Comparator.comparingLong(AttemptState::lockedForSeconds)
+                .thenComparingLong(AttemptState::failures).reversed());
+        return states.size() > limit ? states.subList(0, limit) : states;
+    }
+
+    private static void collect(List<AttemptState> states, KeyType type, ConcurrentHashMap<String, Entry> entries,
+            Policy policy, long now) {
+        entries.forEach((key, entry) -> {
+            synchronized (entry) {
+                long failures = (long) Math.ceil(entry.estimate(now, policy.windowNanos()));
+                long locked = TimeUnit.NANOSECONDS.toSeconds(Math.max(0, entry.lockedUntil - now) + 999_999_999);
+                states.add(new AttemptState(type, key, failures, entry.level, locked));
+            }
+        });
+    }
+
+    /** Número de claves rastreadas (para diagnóstico y pruebas). */
+    public int size() {
+        return usernames.size() + ips.size();
+    }
+
+    /**
+     * Elimina las claves sin fallos en la ventana, sin bloqueo vigente y cuyo nivel
+     * ya habría vuelto a cero.
+     */
+    @Scheduled(fixedDelayString = "${app.login-lockout.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        evictIdle(usernames, usernamePolicy, now);
+        evictIdle(ips, ipPolicy, now);
+    }
+
+    private void evictIdle(ConcurrentHashMap<String, Entry> entries, Policy policy, long now) {
+        entries.entrySet().removeIf(e -> {
+            Entry entry = e.getValue();
+            synchronized (entry) {
+                return entry.lockedUntil - now <= 0
+                        && entry.estimate(now, policy.windowNanos()) == 0
+                        && (entry.level == 0 || now - entry.lastFailure >= levelResetNanos);
+            }
+        });
+    }
+
+    private static String normalize(String username) {
+        return username == null ? null : username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package com.proyecto.spring_back.auth.lockout;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Login rechazado sin comprobar credenciales porque el usuario o la IP están bloqueados.
+ */
+public class LoginLockedException extends AuthenticationException {
+
+    private final long retryAfterSeconds;
+
+    public LoginLockedException(long retryAfterSeconds) {
+        super(String.format("Demasiados intentos fallidos, intente de nuevo en %d segundos", retryAfterSeconds));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,28 @@
+package com.proyecto.spring_back.auth.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Política de un token bucket: tasa sostenida de reposición y ráfaga máxima.
+ *
+ * @param ratePerSecond tokens repuestos por segundo
+ * @param burst capacidad del bucket (solicitudes seguidas permitidas con el bucket lleno)
+ */
+public record RateLimitPolicy(double ratePerSecond, int burst) {
+
+    public RateLimitPolicy {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("La política requiere rate > 0 y burst >= 1");
+        }
+    }
+
+    /** Tiempo entre tokens consecutivos, en nanosegundos. */
+    long emissionIntervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+    }
+
+    /** Adelanto máximo permitido sobre el reloj (capacidad del bucket en tiempo). */
+    long capacityNanos() {
+        return emissionIntervalNanos() * burst;
+    }
+}
@@ -0,0 +1,124 @@
+package com.proyecto.spring_back.auth.ratelimit;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limitador de tasa por cliente basado en token buckets sin bloqueos.
+ *
+ * Cada bucket se representa con un único {@link AtomicLong} que guarda el
+ * "tiempo teórico de llegada" (algoritmo GCRA): consumir un token equivale a
+ * adelantarlo un intervalo de emisión mediante CAS, y el bucket está lleno cuando
+ * ese tiempo ya pasó. Así no hay locks ni hilos de reposición.
+ *
+ * Los buckets inactivos (llenos) se eliminan periódicamente para que el mapa no
+ * crezca con cada IP o usuario que haya pasado alguna vez.
+ */
+@Component
+public class RateLimiter {
+
+    /** Categorías de solicitud, cada una con su propia política. */
+    public enum Category {
+        LOGIN, READ, WRITE
+    }
+
+    private final boolean enabled;
+    private final Map<Category, RateLimitPolicy> policies = new EnumMap<>(Category.class);
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    @Autowired
+    public RateLimiter(
+            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.rate-limit.login.rate:1}") double loginRate,
+            @Value("${app.rate-limit.login.burst:10}") int loginBurst,
+            @Value("${app.rate-limit.read.rate:100}") double readRate,
+            @Value("${app.rate-limit.read.burst:200}") int readBurst,
+            @Value("${app.rate-limit.write.rate:20}") double writeRate,
+            @Value("${app.rate-limit.write.burst:40}") int writeBurst) {
+        this(enabled, Map.of(
+                Category.LOGIN, new RateLimitPolicy(loginRate, loginBurst),
+                Category.READ, new RateLimitPolicy(readRate, readBurst),
+                Category.WRITE, new RateLimitPolicy(writeRate, writeBurst)), System::nanoTime);
+    }
+
+    RateLimiter(boolean enabled, Map<Category, RateLimitPolicy> policies, LongSupplier clock) {
+        this.enabled = enabled;
+        this.policies.putAll(policies);
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Determina la categoría de una solicitud a partir del método y la ruta.
+     */
+    public static Category categorize(String method, String path) {
+        if ("POST".equals(method) && "/login".equals(path)) {
+            return Category.LOGIN;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return Category.READ;
+        }
+        // Consulta por lotes: sustituye a varios GET /api/users/{id}
+        if ("POST".equals(method) && "/api/users/lookup".equals(path)) {
+            return Category.READ;
+        }
+        return Category.WRITE;
+    }
+
+    /**
+     * Intenta consumir un token del bucket identificado por categoría y clave.
+     *
+     * @param category categoría de la solicitud
+     * @param key identificador del cliente (ej: "ip:10.0.0.1" o "user:admin")
+     * @return 0 si se permite la solicitud; si no, nanosegundos hasta que haya un token
+     */
+    public long tryAcquire(Category category, String key) {
+        RateLimitPolicy policy = policies.get(category);
+        long interval = policy.emissionIntervalNanos();
+        long capacity = policy.capacityNanos();
+        AtomicLong bucket = buckets.computeIfAbsent(category.name() + '|' + key, k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = clock.getAsLong();
+            long current = bucket.get();
+            long arrival = current == Long.MIN_VALUE ? now : Math.max(current, now);
+            long next = arrival + interval;
+            long excess = next - now - capacity;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /** Número de buckets vivos (para diagnóstico y pruebas). */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Elimina los buckets llenos, es decir, de clientes sin actividad reciente.
+     * Un cliente que vuelve recibe un bucket nuevo, que también empieza lleno.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        buckets.entrySet().removeIf(entry -> {
+            long arrival = entry.getValue().get();
+            return arrival == Long.MIN_VALUE || arrival <= now;
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.proyecto.spring_back.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Negociación de formatos binarios para los consumidores internos.
+ *
+ * Con {@code Accept: application/cbor} o {@code application/x-jackson-smile} las
+ * respuestas (y los cuerpos de entrada con el Content-Type equivalente) usan esos
+ * formatos; JSON sigue siendo el predeterminado. Los conversores se construyen con el
+ * Jackson2ObjectMapperBuilder de Spring Boot, así que aplican la misma configuración
+ * (módulos, fechas, anotaciones) que el JSON y representan los mismos objetos.
+ *
+ * Boot sustituye con estos beans a los conversores CBOR/Smile por defecto, que van
+ * detrás del de JSON en el orden de negociación.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
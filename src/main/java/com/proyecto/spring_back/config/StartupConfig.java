@@ -0,0 +1,28 @@
+package com.proyecto.spring_back.config;
+
+import java.util.List;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Inicialización diferida selectiva para el perfil {@code fast-start}.
+ *
+ * Con {@code spring.main.lazy-initialization=true} sólo se difieren los beans de los
+ * paquetes de {@code app.startup.deferred-packages} (por defecto la documentación
+ * OpenAPI, que nadie necesita para servir tráfico); el resto queda excluido y se crea
+ * al arrancar como siempre, incluidos los que programan tareas o escuchan eventos.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter deferredPackagesOnly(Environment environment) {
+        List<String> packages = List.of(environment.getProperty("app.startup.deferred-packages", String[].class,
+                new String[] { "org.springdoc" }));
+        return (beanName, definition, type) -> type == null
+                || packages.stream().noneMatch(prefix -> type.getName().startsWith(prefix + "."));
+    }
+}
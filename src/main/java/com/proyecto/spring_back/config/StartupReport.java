@@ -0,0 +1,85 @@
+package com.proyecto.spring_back.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resumen del arranque cuando se ejecuta con {@code -Dapp.startup.profile=true}.
+ *
+ * Reparte el tiempo de arranque por fase (nombre del paso, ej: spring.beans.instantiate)
+ * y por bean usando el tiempo propio de cada paso, es decir, sin el de sus pasos hijos:
+ * así un bean que arrastra la creación de sus dependencias no se lleva su coste. La línea
+ * temporal completa sigue disponible en {@code /actuator/startup}.
+ */
+@Component
+public class StartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+    private static final int TOP = 15;
+
+    /** Tiempo propio acumulado por fase y por bean, en milisegundos y de mayor a menor. */
+    record Summary(Map<String, Long> phases, Map<String, Long> beans) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        // getBufferedTimeline no vacía el buffer, que sigue sirviendo a /actuator/startup
+        Summary summary = summarize(startup.getBufferedTimeline().getEvents(), TOP);
+        log.info("Arranque listo en {} ms. Fases (tiempo propio, ms): {}", event.getTimeTaken().toMillis(),
+                summary.phases());
+        log.info("Beans más lentos de crear (tiempo propio, ms): {}", summary.beans());
+    }
+
+    static Summary summarize(List<StartupTimeline.TimelineEvent> events, int top) {
+        Map<Long, Long> childNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            Long parent = event.getStartupStep().getParentId();
+            if (parent != null) {
+                childNanos.merge(parent, event.getDuration().toNanos(), Long::sum);
+            }
+        }
+        Map<String, Long> phases = new HashMap<>();
+        Map<String, Long> beans = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            StartupStep step = event.getStartupStep();
+            long self = Math.max(0, event.getDuration().toNanos() - childNanos.getOrDefault(step.getId(), 0L));
+            phases.merge(step.getName(), self, Long::sum);
+            if (BEAN_INSTANTIATE.equals(step.getName())) {
+                for (StartupStep.Tag tag : step.getTags()) {
+                    if ("beanName".equals(tag.getKey())) {
+                        beans.merge(tag.getValue(), self, Long::sum);
+                    }
+                }
+            }
+        }
+        return new Summary(topMillis(phases, top), topMillis(beans, top));
+    }
+
+    private static Map<String, Long> topMillis(Map<String, Long> nanos, int top) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(nanos.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(top, entries.size()))) {
+            result.put(entry.getKey(), entry.getValue() / 1_000_000);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,257 @@
+package com.proyecto.spring_back.config;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.spring_back.auth.JwtTokens;
+import com.proyecto.spring_back.auth.TokenJwtConfig;
+import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.models.PublicUser;
+import com.proyecto.spring_back.repositories.UserRepository;
+import com.proyecto.spring_back.services.UserCountCache;
+import com.proyecto.spring_back.services.UserDirectory;
+
+/**
+ * Calentamiento tras el arranque, antes de recibir tráfico real.
+ *
+ * Se ejecuta de forma síncrona al final de ApplicationReadyEvent: Spring Boot sólo
+ * publica {@code ReadinessState.ACCEPTING_TRAFFIC} cuando terminan los listeners de ese
+ * evento, así que {@code /actuator/health/readiness} sigue en REFUSING_TRAFFIC mientras
+ * dura y el balanceador no envía peticiones a un nodo frío.
+ *
+ * Pasos: abrir conexiones del pool, ciclos de emisión/validación de JWT y de BCrypt,
+ * serializar grafos de User representativos, consultas JPA típicas (metadatos y planes
+ * de Hibernate), cargar el total de usuarios y, por último, peticiones HTTP reales a los
+ * endpoints de lectura (DispatcherServlet, filtros, caché de respuestas). Un paso que
+ * falla se registra y no impide el resto; el conjunto está acotado por
+ * {@code app.warmup.max-duration-ms}.
+ *
+ * El resultado se publica como indicador de salud {@code warmUp}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+public class WarmUp implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmUp.class);
+
+    private static final String WARMUP_USERNAME = "warmup";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCountCache userCountCache;
+
+    @Autowired(required = false)
+    private UserDirectory userDirectory;
+
+    private final int iterations;
+    private final int poolConnections;
+    private final int httpRequests;
+    private final long maxDurationMs;
+
+    private final Map<String, Object> steps = new LinkedHashMap<>();
+    private volatile boolean finished;
+    private volatile Instant finishedAt;
+    private volatile long durationMs;
+
+    @Autowired
+    public WarmUp(@Value("${app.warmup.iterations:200}") int iterations,
+            @Value("${app.warmup.pool-connections:10}") int poolConnections,
+            @Value("${app.warmup.http-requests:10}") int httpRequests,
+            @Value("${app.warmup.max-duration-ms:30000}") long maxDurationMs) {
+        this.iterations = iterations;
+        this.poolConnections = poolConnections;
+        this.httpRequests = httpRequests;
+        this.maxDurationMs = maxDurationMs;
+    }
+
+    private interface Step {
+        void run(long deadline) throws Exception;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void warmUp(ApplicationReadyEvent event) {
+        long start = System.nanoTime();
+        long deadline = start + maxDurationMs * 1_000_000;
+        String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+
+        run("pool", deadline, this::warmPool);
+        run("jwt", deadline, this::warmJwt);
+        run("bcrypt", deadline, d -> warmBcrypt());
+        run("serialization", deadline, this::warmSerialization);
+        run("jpa", deadline, this::warmJpa);
+        run("caches", deadline, d -> userCountCache.get());
+        if (port != null) {
+            run("http", deadline, d -> warmHttp(Integer.parseInt(port), d));
+        }
+
+        durationMs = (System.nanoTime() - start) / 1_000_000;
+        finishedAt = Instant.now();
+        finished = true;
+        log.info("Calentamiento terminado en {} ms: {}", durationMs, steps);
+    }
+
+    private void run(String name, long deadline, Step step) {
+        if (System.nanoTime() > deadline) {
+            synchronized (steps) {
+                steps.put(name, "omitido (tiempo agotado)");
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        Object result;
+        try {
+            step.run(deadline);
+            result = (System.nanoTime() - start) / 1_000_000 + " ms";
+        } catch (Exception e) {
+            log.warn("Fallo en el paso de calentamiento {}", name, e);
+            result = "error: " + e;
+        }
+        synchronized (steps) {
+            steps.put(name, result);
+        }
+    }
+
+    /** Abre a la vez varias conexiones para que el pool las cree antes del tráfico. */
+    private void warmPool(long deadline) throws SQLException {
+        List<Connection> held = new ArrayList<>(poolConnections);
+        try {
+            for (int i = 0; i < poolConnections && System.nanoTime() < deadline; i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                connection.isValid(1);
+            }
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    private void warmJwt(long deadline) throws Exception {
+        List<SimpleGrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            JwtTokens.parse(JwtTokens.issue(WARMUP_USERNAME, roles));
+        }
+    }
+
+    /** BCrypt ya hace miles de rondas por hash: bastan unas pocas llamadas para compilarlo. */
+    private void warmBcrypt() {
+        String encoded = passwordEncoder.encode("warm-up");
+        for (int i = 0; i < 3; i++) {
+            passwordEncoder.matches("warm-up", encoded);
+        }
+    }
+
+    private void warmSerialization(long deadline) throws Exception {
+        User user = new User();
+        user.setId(1L);
+        user.setName("Nombre");
+        user.setLastname("Apellido");
+        user.setUsername(WARMUP_USERNAME);
+        user.setEmail("warmup@example.com");
+        user.setLastLoginAt(Instant.now());
+        user.setLoginCount(1L);
+        user.setRoles(List.of(new Role(1L, "ROLE_USER"), new Role(2L, "ROLE_ADMIN")));
+        List<PublicUser.PublicRole> publicRoles = List.of(new PublicUser.PublicRole(1L, "ROLE_USER"));
+        List<PublicUser> page = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            page.add(new PublicUser(id, "Nombre", "Apellido", "user" + id, "user" + id + "@example.com", publicRoles));
+        }
+        for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(user), User.class);
+            objectMapper.writeValueAsBytes(new PageImpl<>(page, PageRequest.of(0, 4), 100));
+        }
+    }
+
+    /** Consultas de sólo lectura con las mismas formas que el tráfico real. */
+    private void warmJpa(long deadline) {
+        int rounds = Math.max(1, iterations / 10);
+        for (int i = 0; i < rounds && System.nanoTime() < deadline; i++) {
+            userRepository.findAllBy(PageRequest.of(0, 4));
+            userRepository.findById(-1L);
+            userRepository.findByUsername(WARMUP_USERNAME);
+            userRepository.findAllWithRolesByIdIn(List.of(-1L));
+            userRepository.findFieldsBy(Set.of("id", "username"), PageRequest.of(0, 4));
+        }
+    }
+
+    /** Peticiones reales a la aplicación, con un token emitido para un usuario sintético. */
+    private void warmHttp(int port, long deadline) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        String token = TokenJwtConfig.PREFIX_TOKEN
+                + JwtTokens.issue(WARMUP_USERNAME, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        Long anyId = userDirectory != null && userDirectory.isLoaded() && !userDirectory.findAll().isEmpty()
+                ? userDirectory.findAll().get(0).id()
+                : 1L;
+        List<HttpRequest> requests = List.of(
+                get(port, "/api/users").header("Accept-Encoding", "gzip").build(),
+                get(port, "/api/users/page/0").build(),
+                get(port, "/api/users/" + anyId).header(TokenJwtConfig.HEADER_AUTHORIZATION, token).build());
+        for (int i = 0; i < httpRequests && System.nanoTime() < deadline; i++) {
+            for (HttpRequest request : requests) {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            }
+        }
+    }
+
+    private static HttpRequest.Builder get(int port, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(5));
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Object> details;
+        synchronized (steps) {
+            details = new LinkedHashMap<>(steps);
+        }
+        if (!finished) {
+            return Health.outOfService().withDetails(details).build();
+        }
+        return Health.up().withDetail("durationMs", durationMs).withDetail("finishedAt", finishedAt)
+                .withDetails(details).build();
+    }
+}
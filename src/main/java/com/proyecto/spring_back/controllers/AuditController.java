@@ -0,0 +1,53 @@
+package com.proyecto.spring_back.controllers;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyecto.spring_back.audit.AuthAuditEvent;
+import com.proyecto.spring_back.audit.AuthAuditLog;
+import com.proyecto.spring_back.audit.AuthAuditReader;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/admin/audit")
+@Tag(name = "Administración", description = "Operaciones de diagnóstico y auditoría")
+public class AuditController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private AuthAuditLog authAuditLog;
+
+    @GetMapping
+    @Operation(summary = "Consultar la auditoría de login",
+        description = "Últimos intentos de login filtrados por usuario, resultado y rango de tiempo (ms desde epoch)")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<Map<String, Object>> query(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) AuthAuditEvent.Outcome outcome,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "100") int limit) throws IOException {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<AuthAuditEvent> events = AuthAuditReader.query(authAuditLog.getDirectory(),
+                AuthAuditReader.filter(username, outcome, from, to), boundedLimit);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("events", events);
+        body.put("pending", authAuditLog.getPendingCount());
+        body.put("dropped", authAuditLog.getDroppedCount());
+        return ResponseEntity.ok(body);
+    }
+}
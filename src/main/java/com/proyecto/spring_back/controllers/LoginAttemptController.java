@@ -0,0 +1,44 @@
+package com.proyecto.spring_back.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyecto.spring_back.auth.lockout.LoginAttemptTracker;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/admin/login-attempts")
+@Tag(name = "Administración", description = "Operaciones de diagnóstico y auditoría")
+public class LoginAttemptController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+
+    @GetMapping
+    @Operation(summary = "Estado de los logins fallidos",
+        description = "Usuarios e IPs con fallos recientes o bloqueados, los más bloqueados primero")
+    @SecurityRequirement(name = "bearer-jwt")
+    public List<LoginAttemptTracker.AttemptState> list(@RequestParam(defaultValue = "100") int limit) {
+        return loginAttemptTracker.snapshot(Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    @DeleteMapping("/{type}/{key}")
+    @Operation(summary = "Desbloquear un usuario o IP", description = "type es USERNAME o IP")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<Void> clear(@PathVariable LoginAttemptTracker.KeyType type, @PathVariable String key) {
+        return loginAttemptTracker.clear(type, key) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
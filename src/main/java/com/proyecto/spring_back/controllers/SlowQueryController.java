@@ -0,0 +1,49 @@
+package com.proyecto.spring_back.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyecto.spring_back.sql.SlowQueryLog;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/admin/sql")
+@Tag(name = "Administración", description = "Operaciones de diagnóstico y auditoría")
+public class SlowQueryController {
+
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @GetMapping("/top")
+    @Operation(summary = "Consultas SQL más costosas",
+        description = "Huellas de sentencias ordenadas por tiempo total, máximo, medio o número de ejecuciones")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> top(@RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "total") String sort) {
+        Map<String, Object> body = slowQueryLog.summary();
+        body.put("sort", sort);
+        body.put("top", slowQueryLog.top(Math.max(1, Math.min(limit, MAX_LIMIT)), sort));
+        return ResponseEntity.ok(body);
+    }
+
+    @DeleteMapping("/stats")
+    @Operation(summary = "Reiniciar las estadísticas SQL")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> reset() {
+        slowQueryLog.reset();
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.proyecto.spring_back.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyecto.spring_back.services.UserAvailability;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/admin/availability")
+@Tag(name = "Administración", description = "Operaciones de diagnóstico y auditoría")
+public class UserAvailabilityController {
+
+    @Autowired
+    private UserAvailability userAvailability;
+
+    @GetMapping
+    @Operation(summary = "Estado del filtro de disponibilidad",
+        description = "Memoria y funciones hash del filtro de Bloom, tasa de falsos positivos estimada "
+            + "y observada, y consultas respondidas sin base de datos")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(userAvailability.stats());
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Reconstruir el filtro de disponibilidad",
+        description = "Lo vuelve a leer de la base de datos (descarta los usuarios borrados)")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        userAvailability.rebuild();
+        return ResponseEntity.ok(userAvailability.stats());
+    }
+}
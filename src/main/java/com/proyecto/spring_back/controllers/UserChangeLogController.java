@@ -0,0 +1,42 @@
+package com.proyecto.spring_back.controllers;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyecto.spring_back.services.UserChangeLog;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/admin/change-log")
+@Tag(name = "Administración", description = "Operaciones de diagnóstico y auditoría")
+public class UserChangeLogController {
+
+    @Autowired
+    private UserChangeLog userChangeLog;
+
+    @GetMapping
+    @Operation(summary = "Estado del registro de cambios entre instancias",
+        description = "Nodo, último seq aplicado, huecos pendientes y cambios de otras instancias aplicados a las cachés locales")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(userChangeLog.stats());
+    }
+
+    @PostMapping("/poll")
+    @Operation(summary = "Sondear el registro de cambios ahora",
+        description = "Aplica sin esperar al siguiente intervalo los cambios confirmados por otras instancias")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<Map<String, Object>> poll() {
+        userChangeLog.poll();
+        return ResponseEntity.ok(userChangeLog.stats());
+    }
+}
@@ -0,0 +1,38 @@
+package com.proyecto.spring_back.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.proyecto.spring_back.services.UserChangeFeed;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/users")
+@Tag(name = "Usuarios", description = "Operaciones CRUD de usuarios")
+public class UserChangesController {
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Flujo de cambios de usuarios",
+        description = "Server-Sent Events con los eventos created/updated/deleted; admite Last-Event-ID para reanudar")
+    @SecurityRequirement(name = "bearer-jwt")
+    public SseEmitter changes(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = userChangeFeed.subscribe(lastEventId);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados suscriptores");
+        }
+        return emitter;
+    }
+}
@@ -6,22 +6,40 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
-import java.util.List;
+import java.util.function.Supplier;
 import java.util.Optional;
 import java.util.Collections;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.RequestParam;
 import com.proyecto.spring_back.entities.User;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import java.util.Map;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.HashMap;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import com.proyecto.spring_back.services.UserServiceImpl;
+import com.proyecto.spring_back.services.IdempotencyStore;
+import com.proyecto.spring_back.services.UserDirectory;
+import com.proyecto.spring_back.services.UserResponseCache;
+import com.proyecto.spring_back.services.UserAvailability;
+import com.proyecto.spring_back.services.UserStats;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.RequestHeader;
+import java.security.Principal;
+import com.proyecto.spring_back.models.PublicUser;
 import com.proyecto.spring_back.models.UserRequest;
 import com.proyecto.spring_back.models.UserSaveRequest;
+import com.proyecto.spring_back.models.UserFields;
+import com.proyecto.spring_back.models.UserLookupRequest;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -37,31 +55,202 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 @Tag(name = "Usuarios", description = "Operaciones CRUD de usuarios")
 public class UserController {
 
+    /** Cabecera con la que el cliente marca los reintentos de una misma creación */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private UserServiceImpl userService;
 
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    /** Disponibilidad de username/email para el registro (filtro de Bloom en memoria) */
+    @Autowired
+    private UserAvailability userAvailability;
+
+    /** Total y usuarios por rol, mantenidos en memoria */
+    @Autowired
+    private UserStats userStats;
+
+    /** Máximo de ids en una consulta por lotes */
+    @Value("${app.users.lookup.max-ids:100}")
+    private int maxLookupIds;
+
+    /** Directorio en memoria para los listados públicos; null si está desactivado */
+    @Autowired(required = false)
+    private UserDirectory userDirectory;
+
+    /** Respuestas ya serializadas de los listados servidos desde el directorio */
+    @Autowired(required = false)
+    private UserResponseCache userResponseCache;
+
     @GetMapping
-    @Operation(summary = "Listar usuarios", description = "Obtiene todos los usuarios")
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    @Operation(summary = "Listar usuarios",
+        description = "Obtiene todos los usuarios; con fields=id,username,... sólo esos campos. "
+            + "El filtro role sólo se admite paginado, en /api/users/page/{page}")
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String fields,
+            @RequestParam(required = false) String role,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<String> selected;
+        try {
+            selected = fields != null ? UserFields.parse(fields, UserFields.PUBLIC) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+        }
+        if (role != null) {
+            // Un rol como ROLE_USER abarca casi toda la tabla: sólo se sirve por páginas
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", "role sólo se admite en /api/users/page/{page}"));
+        }
+        UserDirectory.Snapshot snapshot = directorySnapshot();
+        if (snapshot == null) {
+            // Misma vista pública que el directorio: sin estadísticas de login
+            return ResponseEntity.ok(selected == null
+                    ? userService.getAllUsers().stream().map(PublicUser::of).toList()
+                    : userService.getUserFields(Pageable.unpaged(), selected).getContent());
+        }
+        Supplier<Object> body = selected == null
+                ? snapshot::findAll
+                : () -> UserFields.project(snapshot.findAll(), selected);
+        if (userResponseCache == null || !UserResponseCache.acceptsJson(accept)) {
+            return ResponseEntity.ok(body.get());
+        }
+        return userResponseCache.respond("all" + fieldsKey(selected), snapshot.version(), body,
+                acceptsGzip(acceptEncoding), ifNoneMatch);
     }
 
     @GetMapping("/page/{page}")
-    @Operation(summary = "Listar usuarios paginados", description = "Obtiene usuarios paginados de 4 en 4")
-    public Page<User> getAllUsers(@PathVariable Integer page) {
-        return userService.getAllUsers(PageRequest.of(page, 4));
+    @Operation(summary = "Listar usuarios paginados",
+        description = "Obtiene usuarios paginados de 4 en 4; con count=false devuelve un Slice sin totales "
+            + "; admite fields=id,username,... y, sólo para ADMIN, role=ROLE_ADMIN")
+    public ResponseEntity<?> getAllUsers(@PathVariable Integer page, @RequestParam(defaultValue = "true") boolean count,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String role,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<String> selected;
+        try {
+            selected = fields != null ? UserFields.parse(fields, UserFields.PUBLIC) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+        }
+        PageRequest pageRequest = PageRequest.of(page, 4);
+        if (role != null) {
+            // Consulta indexada en la base de datos, nunca desde el directorio; sólo ADMIN
+            // (ver SpringSecurityConfig)
+            if (selected != null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Collections.singletonMap("error", "role no se puede combinar con fields"));
+            }
+            try {
+                return ResponseEntity.ok(count
+                        ? userService.getUsersByRole(role, pageRequest)
+                        : userService.getUserSliceByRole(role, pageRequest));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+            }
+        }
+        UserDirectory.Snapshot snapshot = directorySnapshot();
+        if (snapshot == null) {
+            if (selected != null) {
+                return ResponseEntity.ok(count
+                        ? userService.getUserFieldsPage(pageRequest, selected)
+                        : userService.getUserFields(pageRequest, selected));
+            }
+            return ResponseEntity.ok(count
+                    ? userService.getAllUsers(pageRequest).map(PublicUser::of)
+                    : userService.getUserSlice(pageRequest).map(PublicUser::of));
+        }
+        Supplier<Object> body;
+        if (selected == null) {
+            body = () -> count ? snapshot.page(pageRequest) : snapshot.slice(pageRequest);
+        } else {
+            body = () -> count
+                    ? snapshot.page(pageRequest).map(user -> UserFields.project(user, selected))
+                    : snapshot.slice(pageRequest).map(user -> UserFields.project(user, selected));
+        }
+        if (userResponseCache == null || !UserResponseCache.acceptsJson(accept)) {
+            return ResponseEntity.ok(body.get());
+        }
+        return userResponseCache.respond("page:" + page + ":" + count + fieldsKey(selected), snapshot.version(), body,
+                acceptsGzip(acceptEncoding), ifNoneMatch);
+    }
+
+    /** Instantánea del directorio en memoria, o null si no está activo o aún no se cargó. */
+    private UserDirectory.Snapshot directorySnapshot() {
+        return userDirectory != null ? userDirectory.snapshot() : null;
+    }
+
+    /** Sufijo de la clave de caché para una selección de campos (el orden cuenta: cambia el JSON). */
+    private static String fieldsKey(Set<String> selected) {
+        return selected == null ? "" : ":" + String.join(",", selected);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    @GetMapping("/availability")
+    @Operation(summary = "Disponibilidad de username y email",
+        description = "Pensado para validar el formulario de registro en cada pulsación: la mayoría de "
+            + "respuestas salen de un filtro en memoria y sólo un posible acierto consulta la base de datos")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Disponibilidad de los valores indicados"),
+        @ApiResponse(responseCode = "400", description = "Sin username ni email",
+            content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<?> availability(@RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        boolean hasUsername = username != null && !username.isBlank();
+        boolean hasEmail = email != null && !email.isBlank();
+        if (!hasUsername && !hasEmail) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "Indica username, email o ambos"));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (hasUsername) {
+            body.put("username", username);
+            body.put("usernameAvailable", userAvailability.checkUsername(username).available());
+        }
+        if (hasEmail) {
+            body.put("email", email);
+            body.put("emailAvailable", userAvailability.checkEmail(email).available());
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Estadísticas de usuarios",
+        description = "Total, usuarios por rol y administradores desde contadores en memoria, sin consultar "
+            + "la base de datos; se reconcilian periódicamente con ella")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(userStats.stats());
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Detalle de usuario por id")
+    @Operation(summary = "Detalle de usuario por id",
+        description = "Con fields=id,username,... sólo esos campos (incluidos lastLoginAt y loginCount)")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Usuario encontrado"),
+        @ApiResponse(responseCode = "400", description = "Campo no permitido en fields",
+            content = @Content(schema = @Schema(implementation = Map.class))),
         @ApiResponse(responseCode = "404", description = "Usuario no encontrado",
             content = @Content(schema = @Schema(implementation = Map.class)))
     })
     @SecurityRequirement(name = "bearer-jwt")
-    public ResponseEntity<?> getUserById(@PathVariable Long id) {
-        Optional<User> user = userService.getUserById(id);
+    public ResponseEntity<?> getUserById(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        Optional<?> user;
+        try {
+            user = fields != null
+                    ? userService.getUserFieldsById(id, UserFields.parse(fields, UserFields.ALL))
+                    : userService.getUserById(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("error", e.getMessage()));
+        }
         if (user.isPresent()) {
             return ResponseEntity.status(HttpStatus.OK).body(user.get());
         } else {
@@ -69,15 +258,71 @@ public class UserController {
         }
     }
 
+    @PostMapping("/lookup")
+    @Operation(summary = "Consultar varios usuarios por id",
+        description = "Resuelve una lista de ids con una sola consulta; devuelve los encontrados y los ids inexistentes")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Usuarios encontrados e ids que no existen"),
+        @ApiResponse(responseCode = "400", description = "Lista vacía o con más ids de los permitidos",
+            content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> lookupUsers(@Valid @RequestBody UserLookupRequest lookupRequest, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            Map<String, String> errors = new HashMap<>();
+            bindingResult.getFieldErrors().forEach(err -> {
+                errors.put(err.getField(), err.getDefaultMessage());
+            });
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
+        }
+        // Antes de copiar: el tamaño de la lista recibida ya acota el trabajo
+        if (lookupRequest.getIds().size() > maxLookupIds) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", "Se admiten entre 1 y " + maxLookupIds + " ids por consulta"));
+        }
+        Set<Long> ids = new LinkedHashSet<>(lookupRequest.getIds());
+        ids.remove(null);
+        if (ids.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", "Se admiten entre 1 y " + maxLookupIds + " ids por consulta"));
+        }
+
+        Map<Long, User> byId = new HashMap<>();
+        for (User user : userService.getUsersByIds(ids)) {
+            byId.put(user.getId(), user);
+        }
+        // Mismo orden que la petición
+        List<User> found = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                found.add(user);
+            } else {
+                missing.add(id);
+            }
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("found", found);
+        body.put("missing", missing);
+        return ResponseEntity.ok(body);
+    }
+
     @PostMapping
     @Operation(summary = "Crear usuario")
     @ApiResponses({
         @ApiResponse(responseCode = "201", description = "Usuario creado"),
         @ApiResponse(responseCode = "400", description = "Datos inválidos",
+            content = @Content(schema = @Schema(implementation = Map.class))),
+        @ApiResponse(responseCode = "409", description = "La solicitud con esa Idempotency-Key aún se está procesando",
+            content = @Content(schema = @Schema(implementation = Map.class))),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key reutilizada con otra solicitud",
             content = @Content(schema = @Schema(implementation = Map.class)))
     })
     @SecurityRequirement(name = "bearer-jwt")
-    public ResponseEntity<?> createUser(@Valid @RequestBody UserSaveRequest userSaveRequest, BindingResult bindingResult) {
+    public ResponseEntity<?> createUser(@Valid @RequestBody UserSaveRequest userSaveRequest, BindingResult bindingResult,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
         if (bindingResult.hasErrors()) {
             Map<String, String> errors = new HashMap<>();
             bindingResult.getFieldErrors().forEach(err -> {
@@ -85,8 +330,37 @@ public class UserController {
             });
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
         }
-        User newUser = userService.createUser(userSaveRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body(newUser);
+        if (idempotencyKey == null) {
+            User newUser = userService.createUser(userSaveRequest);
+            return ResponseEntity.status(HttpStatus.CREATED).body(newUser);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", "Idempotency-Key inválida"));
+        }
+
+        // La clave se acota al usuario autenticado para que dos clientes no colisionen
+        String scopedKey = (principal != null ? principal.getName() : "") + ":" + idempotencyKey;
+        try {
+            IdempotencyStore.Result<User> result = idempotencyStore.execute(scopedKey, fingerprint(userSaveRequest),
+                    () -> userService.createUser(userSaveRequest));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                    .body(result.value());
+        } catch (IdempotencyStore.KeyReuseException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        } catch (IdempotencyStore.InProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    /** Huella del cuerpo completo (campos canónicos), no el hashCode de 32 bits. */
+    private static String fingerprint(UserSaveRequest request) {
+        return IdempotencyStore.fingerprint(request.getName(), request.getLastname(), request.getPassword(),
+                request.getUsername(), request.getEmail(), request.isAdmin());
     }
 
     @PutMapping("/{id}")
@@ -124,9 +398,7 @@ public class UserController {
     })
     @SecurityRequirement(name = "bearer-jwt")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        Optional<User> existingUser = userService.getUserById(id);
-        if (existingUser.isPresent()) {
-            userService.deleteById(id);
+        if (userService.deleteById(id)) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Collections.singletonMap("error", "Usuario no encontrado"));
@@ -0,0 +1,46 @@
+package com.proyecto.spring_back.controllers;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyecto.spring_back.services.UserDirectory;
+import com.proyecto.spring_back.services.UserResponseCache;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/admin/directory")
+@Tag(name = "Administración", description = "Operaciones de diagnóstico y auditoría")
+public class UserDirectoryController {
+
+    @Autowired(required = false)
+    private UserDirectory userDirectory;
+
+    @Autowired(required = false)
+    private UserResponseCache userResponseCache;
+
+    @GetMapping
+    @Operation(summary = "Memoria del directorio de usuarios",
+        description = "Número de usuarios, tamaño estimado de la instantánea y estado de la caché de respuestas")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> footprint() {
+        if (userDirectory == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Collections.singletonMap("error", "Directorio de usuarios desactivado"));
+        }
+        Map<String, Object> report = userDirectory.footprint();
+        if (userResponseCache != null) {
+            report.put("responseCache", userResponseCache.stats());
+        }
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,109 @@
+package com.proyecto.spring_back.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.proyecto.spring_back.snapshot.UserSnapshotService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/admin/snapshots")
+@Tag(name = "Administración", description = "Operaciones de diagnóstico y auditoría")
+public class UserSnapshotController {
+
+    @Autowired
+    private UserSnapshotService snapshotService;
+
+    @GetMapping
+    @Operation(summary = "Instantáneas disponibles", description = "Nombre, tamaño y fecha de creación")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<List<Map<String, Object>>> list() throws IOException {
+        return ResponseEntity.ok(snapshotService.list());
+    }
+
+    @PostMapping
+    @Operation(summary = "Exportar usuarios y roles",
+        description = "Escribe users, roles y users_roles en una instantánea binaria comprimida")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> export(@RequestParam(required = false) String name) throws IOException {
+        String fileName = name != null ? name : "users-" + Instant.now().toEpochMilli() + ".usnap";
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(snapshotService.export(fileName));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{name}")
+    @Operation(summary = "Descargar una instantánea")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> download(@PathVariable String name) {
+        FileSystemResource file;
+        try {
+            file = new FileSystemResource(snapshotService.resolve(name));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+        if (!file.exists()) {
+            return notFound(name);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                .body(file);
+    }
+
+    @PutMapping(value = "/{name}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Subir una instantánea", description = "Por ejemplo, la descargada de otro nodo")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> upload(@PathVariable String name, InputStream body) throws IOException {
+        try {
+            long bytes = snapshotService.store(name, body);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("name", name, "bytes", bytes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{name}/restore")
+    @Operation(summary = "Restaurar una instantánea",
+        description = "Sustituye users, roles y users_roles por su contenido, con inserciones por lotes; "
+            + "informa de filas por segundo")
+    @SecurityRequirement(name = "bearer-jwt")
+    public ResponseEntity<?> restore(@PathVariable String name) throws IOException {
+        try {
+            return ResponseEntity.ok(snapshotService.restore(name));
+        } catch (NoSuchFileException e) {
+            return notFound(name);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    private static ResponseEntity<?> notFound(String name) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Collections.singletonMap("error", "Instantánea no encontrada: " + name));
+    }
+}
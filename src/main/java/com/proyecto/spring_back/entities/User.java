@@ -14,21 +14,33 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Index;
 import jakarta.persistence.Transient;
+import jakarta.persistence.Column;
 import com.proyecto.spring_back.models.IUser;
 
+import org.hibernate.annotations.SQLRestriction;
+
 import lombok.Data;
 
 
+import java.time.Instant;
 import java.util.List;
 import java.util.ArrayList;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_deleted_at", columnList = "deleted_at"), // Lo recorre UserPurger
+        // Login (findByUsername) y el UPDATE por lotes de LoginActivityRecorder; sin unique:
+        // un usuario con borrado lógico conserva su username hasta la purga
+        @Index(name = "idx_users_username", columnList = "username") })
+// Borrado lógico: ninguna consulta JPA (find, JPQL, Criteria, count) ve los usuarios borrados
+@SQLRestriction("deleted_at is null")
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User implements IUser{
@@ -64,6 +76,20 @@ public class User implements IUser{
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private boolean admin;
 
+    // Estadísticas de login: las escribe por lotes LoginActivityRecorder, nunca JPA
+    @Column(name = "last_login_at", insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant lastLoginAt;
+
+    @Column(name = "login_count", insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long loginCount;
+
+    // Borrado lógico: lo marca UserRepository.softDeleteById y UserPurger borra la fila después
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    @JsonIgnore
+    private Instant deletedAt;
+
     @Override
     public boolean isAdmin() {
         return admin;
@@ -78,7 +104,8 @@ public class User implements IUser{
         name = "users_roles",                              // Nombre de la tabla intermedia
         joinColumns = @JoinColumn(name = "user_id"),       // Columna que referencia al usuario
         inverseJoinColumns = @JoinColumn(name = "role_id"), // Columna que referencia al rol
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "role_id"}) // Evita duplicados: un usuario no puede tener el mismo rol dos veces
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "role_id"}), // Evita duplicados: un usuario no puede tener el mismo rol dos veces
+        indexes = @Index(name = "idx_users_roles_role_user", columnList = "role_id, user_id") // Usuarios de un rol sin recorrer la tabla (?role=)
     )
     private List<Role> roles; // Lista de roles que tiene este usuario
 }
@@ -0,0 +1,45 @@
+package com.proyecto.spring_back.entities;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entrada del registro de cambios de usuarios que comparten todas las instancias.
+ *
+ * La escribe y la lee {@code UserChangeLog} por JDBC; la entidad sólo define la tabla.
+ * {@code seq} crece con cada escritura y es la posición desde la que sondea cada nodo.
+ */
+@Entity
+@Table(name = "user_change_log", indexes = @Index(name = "idx_user_change_log_created_at", columnList = "created_at")) // Compactación
+@Data
+@NoArgsConstructor
+public class UserChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    // Null en los cambios que afectan a todos los usuarios (REPLACED)
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "change_type", nullable = false, length = 16)
+    private String changeType;
+
+    // Instancia que hizo el cambio; ella ya actualizó sus cachés con el evento local
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,20 @@
+package com.proyecto.spring_back.events;
+
+/**
+ * Evento local publicado por UserChangeLog por cada cambio que otra instancia dejó en
+ * user_change_log. Lleva sólo el id: los oyentes releen el estado vigente de la base de
+ * datos, así que aplicar dos veces el mismo cambio o recibirlos desordenados no deja
+ * datos obsoletos.
+ *
+ * Se publica fuera de cualquier transacción: los oyentes usan {@code @EventListener}.
+ *
+ * @param type tipo de cambio; REPLACED obliga a recargar todo
+ * @param userId usuario afectado, o null si type es REPLACED
+ * @param nodeId instancia que hizo el cambio
+ */
+public record RemoteUserChangeEvent(Type type, Long userId, String nodeId) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, REPLACED
+    }
+}
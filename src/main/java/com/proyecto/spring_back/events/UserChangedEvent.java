@@ -0,0 +1,29 @@
+package com.proyecto.spring_back.events;
+
+import java.util.List;
+
+import com.proyecto.spring_back.entities.User;
+
+/**
+ * Evento de aplicación publicado por UserServiceImpl en cada alta, modificación o
+ * baja de usuario. Los oyentes interesados en el estado confirmado deben usar
+ * {@code @TransactionalEventListener} (fase AFTER_COMMIT).
+ *
+ * @param type tipo de cambio
+ * @param user estado del usuario tras el cambio (en bajas, el último estado conocido)
+ * @param previousRoles nombres de los roles antes del cambio (sólo en UPDATED; vacío en el resto)
+ */
+public record UserChangedEvent(Type type, User user, List<String> previousRoles) {
+
+    public UserChangedEvent(Type type, User user) {
+        this(type, user, List.of());
+    }
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public Long userId() {
+        return user.getId();
+    }
+}
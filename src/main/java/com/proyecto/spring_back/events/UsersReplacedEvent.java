@@ -0,0 +1,13 @@
+package com.proyecto.spring_back.events;
+
+/**
+ * Evento publicado cuando se sustituye de una vez todo el contenido de users, roles y
+ * users_roles (restauración de una instantánea). No hay un UserChangedEvent por usuario:
+ * los oyentes que mantienen copias en memoria deben recargarlas por completo, tras el
+ * commit ({@code @TransactionalEventListener}).
+ *
+ * @param source origen de los datos (nombre de la instantánea)
+ * @param users usuarios cargados
+ */
+public record UsersReplacedEvent(String source, long users) {
+}
@@ -0,0 +1,23 @@
+package com.proyecto.spring_back.models;
+
+import java.util.List;
+
+import com.proyecto.spring_back.entities.User;
+
+/**
+ * Vista pública e inmutable de un usuario, la que sirven los listados anónimos.
+ * No incluye la contraseña ni las estadísticas de login.
+ */
+public record PublicUser(Long id, String name, String lastname, String username, String email, List<PublicRole> roles) {
+
+    /** Vista pública de una entidad, para los listados que no salen del directorio. */
+    public static PublicUser of(User user) {
+        List<PublicRole> roles = user.getRoles() == null ? List.of()
+                : user.getRoles().stream().map(role -> new PublicRole(role.getId(), role.getName())).toList();
+        return new PublicUser(user.getId(), user.getName(), user.getLastname(), user.getUsername(), user.getEmail(),
+                roles);
+    }
+
+    public record PublicRole(Long id, String name) {
+    }
+}
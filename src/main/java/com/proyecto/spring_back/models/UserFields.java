@@ -0,0 +1,79 @@
+package com.proyecto.spring_back.models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Campos de usuario que un cliente puede pedir con {@code ?fields=id,username,...}.
+ *
+ * La lista blanca coincide con las propiedades JSON de User (nunca la contraseña); los
+ * listados públicos sólo admiten los campos de {@link PublicUser}. El orden de los
+ * campos en la respuesta es el de la petición.
+ */
+public final class UserFields {
+
+    public static final String ROLES = "roles";
+
+    /** Campos admitidos en los listados públicos */
+    public static final List<String> PUBLIC = List.of("id", "name", "lastname", "username", "email", ROLES);
+
+    /** Campos admitidos en el detalle de un usuario autenticado */
+    public static final List<String> ALL = List.of("id", "name", "lastname", "username", "email", ROLES,
+            "lastLoginAt", "loginCount");
+
+    private UserFields() {
+    }
+
+    /**
+     * Interpreta el parámetro {@code fields}: nombres separados por comas, sin repetidos.
+     *
+     * @throws IllegalArgumentException si está vacío o algún campo no está en {@code allowed}
+     */
+    public static Set<String> parse(String fields, List<String> allowed) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Campo no permitido: " + name + ". Campos válidos: "
+                        + String.join(",", allowed));
+            }
+            selected.add(name);
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("El parámetro fields no puede estar vacío");
+        }
+        return selected;
+    }
+
+    /** Sólo los campos pedidos de un usuario del directorio en memoria. */
+    public static Map<String, Object> project(PublicUser user, Set<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> row.put(field, user.id());
+                case "name" -> row.put(field, user.name());
+                case "lastname" -> row.put(field, user.lastname());
+                case "username" -> row.put(field, user.username());
+                case "email" -> row.put(field, user.email());
+                case ROLES -> row.put(field, user.roles());
+                default -> throw new IllegalArgumentException("Campo no disponible en el directorio: " + field);
+            }
+        }
+        return row;
+    }
+
+    public static List<Map<String, Object>> project(List<PublicUser> users, Set<String> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(users.size());
+        for (PublicUser user : users) {
+            rows.add(project(user, fields));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,19 @@
+package com.proyecto.spring_back.models;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/** Cuerpo de POST /api/users/lookup: ids de los usuarios a resolver de una vez. */
+@Data
+public class UserLookupRequest {
+
+    /** Tope fijo; app.users.lookup.max-ids sólo puede ser menor o igual. */
+    public static final int MAX_IDS = 1000;
+
+    @NotEmpty
+    @Size(max = MAX_IDS, message = "Se admiten como mucho " + MAX_IDS + " ids por consulta")
+    private List<Long> ids;
+}
@@ -4,16 +4,42 @@ import org.springframework.stereotype.Repository;
 
 import com.proyecto.spring_back.entities.User;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends CrudRepository<User, Long>{
+public interface UserRepository extends CrudRepository<User, Long>, UserRepositoryCustom {
     Page<User> findAll(Pageable pageable);
+    // Lee size+1 filas para saber si hay más, sin consulta de conteo
+    Slice<User> findAllBy(Pageable pageable);
     Optional<User> findByUsername(String username);
+    // Disponibilidad en el registro (sólo ante un posible acierto del filtro de Bloom)
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+    // Varios usuarios con sus roles en una sola consulta (un IN con join de roles)
+    @Query("select distinct u from User u left join fetch u.roles where u.id in :ids")
+    List<User> findAllWithRolesByIdIn(@Param("ids") Collection<Long> ids);
+    // Ids de los usuarios de un rol: filtra users_roles.role_id (índice role_id, user_id) sin unir
+    // la tabla roles; los usuarios con sus roles se cargan después con findAllWithRolesByIdIn
+    @Query("select u.id from User u join u.roles r where r.id = :roleId order by u.id")
+    Slice<Long> findIdSliceByRoleId(@Param("roleId") Long roleId, Pageable pageable);
+    @Query(value = "select u.id from User u join u.roles r where r.id = :roleId order by u.id",
+            countQuery = "select count(u) from User u join u.roles r where r.id = :roleId")
+    Page<Long> findIdPageByRoleId(@Param("roleId") Long roleId, Pageable pageable);
+    // Borrado lógico: un único UPDATE por clave primaria; las filas de users y users_roles las borra UserPurger
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update User u set u.deletedAt = :at where u.id = :id and u.deletedAt is null")
+    int softDeleteById(@Param("id") Long id, @Param("at") Instant at);
 
 }
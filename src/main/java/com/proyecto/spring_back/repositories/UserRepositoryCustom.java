@@ -0,0 +1,20 @@
+package com.proyecto.spring_back.repositories;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Consultas de UserRepository que seleccionan sólo las columnas pedidas (ver
+ * {@link com.proyecto.spring_back.models.UserFields}).
+ */
+public interface UserRepositoryCustom {
+
+    // Como findAllBy: lee size+1 filas para saber si hay más, sin consulta de conteo
+    Slice<Map<String, Object>> findFieldsBy(Set<String> fields, Pageable pageable);
+
+    Optional<Map<String, Object>> findFieldsById(Long id, Set<String> fields);
+}
@@ -0,0 +1,134 @@
+package com.proyecto.spring_back.repositories;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.models.PublicUser;
+import com.proyecto.spring_back.models.UserFields;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Proyecciones dinámicas de usuarios con una consulta Criteria de tuplas: el SELECT
+ * lleva sólo las columnas pedidas (más el id) y no se cargan entidades, así que los
+ * roles EAGER no se leen. Si se piden los roles, se cargan en una segunda consulta
+ * para todos los ids de la página (en bloques de {@value #ROLES_CHUNK} ids, para que el
+ * listado sin paginar no genere una lista IN sin límite).
+ */
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final String ID = "id";
+    static final int ROLES_CHUNK = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Map<String, Object>> findFieldsBy(Set<String> fields, Pageable pageable) {
+        List<Map<String, Object>> rows = select(fields, null, pageable);
+        boolean hasNext = pageable.isPaged() && rows.size() > pageable.getPageSize();
+        if (hasNext) {
+            rows = rows.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(finish(rows, fields), pageable, hasNext);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, Set<String> fields) {
+        List<Map<String, Object>> rows = select(fields, id, Pageable.unpaged());
+        return finish(rows, fields).stream().findFirst();
+    }
+
+    private List<Map<String, Object>> select(Set<String> fields, Long id, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+
+        // El id se selecciona siempre: hace falta para unir los roles
+        List<Selection<?>> columns = new ArrayList<>();
+        columns.add(root.get(ID).alias(ID));
+        for (String field : fields) {
+            if (!field.equals(ID) && !field.equals(UserFields.ROLES)) {
+                columns.add(root.get(field).alias(field));
+            }
+        }
+        query.multiselect(columns);
+        if (id != null) {
+            query.where(cb.equal(root.get(ID), id));
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        } else {
+            query.orderBy(cb.asc(root.get(ID)));
+        }
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : typed.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(ID, tuple.get(ID));
+            for (String field : fields) {
+                if (!field.equals(ID) && !field.equals(UserFields.ROLES)) {
+                    row.put(field, tuple.get(field));
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /** Añade los roles si se pidieron y deja cada fila con los campos en el orden pedido. */
+    private List<Map<String, Object>> finish(List<Map<String, Object>> rows, Set<String> fields) {
+        Map<Long, List<PublicUser.PublicRole>> roles = fields.contains(UserFields.ROLES) && !rows.isEmpty()
+                ? rolesOf(rows.stream().map(row -> (Long) row.get(ID)).toList())
+                : Map.of();
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> ordered = new LinkedHashMap<>();
+            for (String field : fields) {
+                ordered.put(field, field.equals(UserFields.ROLES)
+                        ? roles.getOrDefault((Long) row.get(ID), List.of())
+                        : row.get(field));
+            }
+            result.add(ordered);
+        }
+        return result;
+    }
+
+    private Map<Long, List<PublicUser.PublicRole>> rolesOf(List<Long> ids) {
+        Map<Long, List<PublicUser.PublicRole>> roles = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += ROLES_CHUNK) {
+            List<Object[]> pairs = entityManager.createQuery(
+                    "select u.id, r.id, r.name from User u join u.roles r where u.id in :ids order by r.id", Object[].class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + ROLES_CHUNK, ids.size())))
+                    .getResultList();
+            for (Object[] pair : pairs) {
+                roles.computeIfAbsent((Long) pair[0], userId -> new ArrayList<>())
+                        .add(new PublicUser.PublicRole((Long) pair[1], (String) pair[2]));
+            }
+        }
+        return roles;
+    }
+}
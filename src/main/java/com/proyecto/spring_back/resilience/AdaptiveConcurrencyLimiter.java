@@ -0,0 +1,191 @@
+package com.proyecto.spring_back.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Límite de concurrencia adaptativo basado en la latencia observada (estilo Gradient/Vegas).
+ *
+ * En cada ventana se compara la latencia media reciente con una media de largo plazo:
+ * si la latencia sube (la base de datos se satura) el límite se contrae en proporción;
+ * si se mantiene, crece en raíz cuadrada del límite actual. Los errores 5xx se tratan
+ * como pérdidas y reducen el límite multiplicativamente.
+ *
+ * Las solicitudes {@link Priority#BEST_EFFORT} sólo pueden ocupar una fracción del
+ * límite, de forma que login y escrituras conservan capacidad reservada.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    /** Prioridad de una solicitud frente al límite. */
+    public enum Priority {
+        /** Login, escrituras y lecturas autenticadas: pueden usar todo el límite. */
+        CRITICAL,
+        /** Lecturas anónimas: se descartan primero. */
+        BEST_EFFORT
+    }
+
+    private static final int MIN_SAMPLES_PER_WINDOW = 10;
+    private static final double LONG_WINDOW = 20;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double bestEffortFraction;
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder sampleCount = new LongAdder();
+    private final LongAdder sampleSum = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+    private final AtomicLong nextUpdate;
+    private final LongAdder rejectedCritical = new LongAdder();
+    private final LongAdder rejectedBestEffort = new LongAdder();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(
+            @Value("${app.concurrency.enabled:true}") boolean enabled,
+            @Value("${app.concurrency.initial-limit:50}") int initialLimit,
+            @Value("${app.concurrency.min-limit:10}") int minLimit,
+            @Value("${app.concurrency.max-limit:500}") int maxLimit,
+            @Value("${app.concurrency.best-effort-fraction:0.75}") double bestEffortFraction,
+            @Value("${app.concurrency.window-ms:1000}") long windowMillis,
+            MeterRegistry meterRegistry) {
+        this(enabled, initialLimit, minLimit, maxLimit, bestEffortFraction,
+                TimeUnit.MILLISECONDS.toNanos(windowMillis), System::nanoTime);
+        registerMetrics(meterRegistry);
+    }
+
+    AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit,
+            double bestEffortFraction, long windowNanos, LongSupplier clock) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.bestEffortFraction = bestEffortFraction;
+        this.windowNanos = windowNanos;
+        this.clock = clock;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.nextUpdate = new AtomicLong(clock.getAsLong() + windowNanos);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("app.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Límite de concurrencia estimado").register(registry);
+        Gauge.builder("app.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Solicitudes en curso").register(registry);
+        for (Priority priority : Priority.values()) {
+            FunctionCounter.builder("app.concurrency.rejected", this, l -> l.getRejected(priority))
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Solicitudes rechazadas por el límite").register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Intenta reservar un hueco de concurrencia.
+     *
+     * @return true si la solicitud puede continuar; debe llamarse a {@link #release} al terminar
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = priority == Priority.CRITICAL ? limit : Math.max(1, (int) (limit * bestEffortFraction));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                (priority == Priority.CRITICAL ? rejectedCritical : rejectedBestEffort).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el hueco y registra la latencia de la solicitud.
+     *
+     * @param rttNanos duración de la solicitud
+     * @param dropped true si terminó en error de servidor o excepción
+     */
+    public void release(long rttNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        sampleCount.increment();
+        sampleSum.add(rttNanos);
+        if (dropped) {
+            drops.increment();
+        }
+        long now = clock.getAsLong();
+        long deadline = nextUpdate.get();
+        if (now >= deadline && nextUpdate.compareAndSet(deadline, now + windowNanos)) {
+            updateLimit();
+        }
+    }
+
+    private synchronized void updateLimit() {
+        long count = sampleCount.sumThenReset();
+        long sum = sampleSum.sumThenReset();
+        long dropCount = drops.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (count < MIN_SAMPLES_PER_WINDOW) {
+            return;
+        }
+
+        double shortRtt = (double) sum / count;
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOW;
+        // Si la latencia de largo plazo quedó muy por encima de la actual (p. ej. tras
+        // una caída de la BD ya superada), se acerca más rápido para no sobreestimar
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double newLimit;
+        if (dropCount > 0) {
+            newLimit = estimatedLimit * BACKOFF_RATIO;
+        } else if (peak < estimatedLimit / 2) {
+            // La aplicación no está usando el límite: no hay información para subirlo
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        }
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected(Priority priority) {
+        return (priority == Priority.CRITICAL ? rejectedCritical : rejectedBestEffort).sum();
+    }
+}
@@ -0,0 +1,87 @@
+package com.proyecto.spring_back.resilience;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.spring_back.auth.JwtTokens;
+import static com.proyecto.spring_back.auth.TokenJwtConfig.*;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtro de servlet que aplica el {@link AdaptiveConcurrencyLimiter}.
+ *
+ * Se ejecuta antes de la cadena de Spring Security: cuando el límite está agotado la
+ * solicitud se rechaza de inmediato con 503 en lugar de encolarse hasta agotar el
+ * tiempo. Las lecturas sin un token válido se consideran de menor prioridad.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Los health checks del balanceador deben responder siempre
+        return !limiter.isEnabled() || request.getRequestURI().startsWith("/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        AdaptiveConcurrencyLimiter.Priority priority = priorityOf(request);
+        if (!limiter.tryAcquire(priority)) {
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * Login y escrituras son críticas; las lecturas sin un JWT válido (listados públicos)
+     * son las primeras en descartarse. El filtro va antes de Spring Security, así que aquí
+     * se comprueba la firma: una cabecera Authorization cualquiera no sube la prioridad.
+     */
+    static AdaptiveConcurrencyLimiter.Priority priorityOf(HttpServletRequest request) {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (read && !hasValidToken(request)) {
+            return AdaptiveConcurrencyLimiter.Priority.BEST_EFFORT;
+        }
+        return AdaptiveConcurrencyLimiter.Priority.CRITICAL;
+    }
+
+    private static boolean hasValidToken(HttpServletRequest request) {
+        String header = request.getHeader(HEADER_AUTHORIZATION);
+        return header != null && header.startsWith(PREFIX_TOKEN)
+                && JwtTokens.isValid(header.substring(PREFIX_TOKEN.length()));
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Service Unavailable");
+        body.put("message", "El servidor está saturado, intente de nuevo más tarde");
+
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType(CONTENT_TYPE);
+        response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+    }
+}
@@ -0,0 +1,120 @@
+package com.proyecto.spring_back.resilience;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+
+/**
+ * DataSource que aplica el plazo de la solicitud ({@link RequestDeadline}) a cada
+ * sentencia: al crearla le fija como timeout JDBC el tiempo que le queda a la solicitud,
+ * y si ya no queda nada falla con SQLTimeoutException sin llegar a la base de datos.
+ *
+ * La espera por una conexión de Hikari también se acota al plazo restante (sin superar
+ * su {@code connection-timeout}): con el pool agotado, la solicitud falla con
+ * SQLTimeoutException al vencer su plazo en lugar de seguir en la cola del pool. Para
+ * ello debe envolver directamente al HikariDataSource (ver ResilienceConfig).
+ *
+ * Cubre todo lo que pasa por el pool (JPA, JdbcTemplate, flush de Hibernate). El timeout
+ * JDBC se expresa en segundos: el plazo se redondea hacia arriba, con un mínimo de 1 s.
+ * Fuera de una solicitud no cambia nada.
+ */
+public class DeadlineDataSource extends DelegatingDataSource {
+
+    public DeadlineDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        checkDeadline();
+        return wrap(borrow());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        checkDeadline();
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection borrow() throws SQLException {
+        if (RequestDeadline.isSet() && getTargetDataSource() instanceof HikariDataSource hikari
+                && hikari.getHikariPoolMXBean() instanceof HikariPool pool) {
+            try {
+                return pool.getConnection(Math.min(RequestDeadline.remainingMillis(), hikari.getConnectionTimeout()));
+            } catch (SQLTransientConnectionException e) {
+                if (RequestDeadline.isExpired()) {
+                    throw new SQLTimeoutException("Plazo de la solicitud agotado esperando una conexión", e);
+                }
+                throw e;
+            }
+        }
+        // Sin plazo, o pool aún sin arrancar: lo arranca la primera conexión
+        return super.getConnection();
+    }
+
+    private static void checkDeadline() throws SQLTimeoutException {
+        if (RequestDeadline.isExpired()) {
+            throw new SQLTimeoutException("Plazo de la solicitud agotado");
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                new ConnectionHandler(connection));
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            boolean createsStatement = name.equals("createStatement") || name.startsWith("prepare");
+            if (createsStatement) {
+                checkDeadline();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (createsStatement && result instanceof Statement statement && RequestDeadline.isSet()) {
+                long remaining = RequestDeadline.remainingMillis();
+                statement.setQueryTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000)));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.proyecto.spring_back.resilience;
+
+import java.io.IOException;
+import java.sql.SQLTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import static com.proyecto.spring_back.auth.TokenJwtConfig.*;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtro de servlet que da a cada solicitud un plazo ({@link RequestDeadline}).
+ *
+ * El plazo sale de la cabecera {@value #HEADER_TIMEOUT} (acotada a {@code max-ms}) o,
+ * si no viene, del valor por defecto de login, lecturas o escrituras. Con el plazo
+ * fijado, {@link DeadlineDataSource} limita cada sentencia al tiempo restante: durante
+ * una degradación de la base de datos las consultas atascadas se cancelan en lugar de
+ * acumular hilos y conexiones del pool. Una solicitud que agota su plazo termina con 504.
+ *
+ * No se aplica al flujo SSE, a las instantáneas (operaciones largas por diseño) ni a
+ * Actuator.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_TIMEOUT = "X-Request-Timeout-Ms";
+
+    private final long loginMillis;
+    private final long readMillis;
+    private final long writeMillis;
+    private final long maxMillis;
+
+    public DeadlineFilter(long loginMillis, long readMillis, long writeMillis, long maxMillis) {
+        this.loginMillis = loginMillis;
+        this.readMillis = readMillis;
+        this.writeMillis = writeMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.startsWith("/actuator/") || uri.equals("/api/users/changes") || uri.startsWith("/api/admin/snapshots");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        RequestDeadline.start(timeoutOf(request));
+        try {
+            chain.doFilter(request, response);
+        } catch (ServletException | RuntimeException e) {
+            if (!isDeadlineExceeded(e) || response.isCommitted()) {
+                throw e;
+            }
+            reject(response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    /** Plazo pedido por el cliente (sin superar max-ms) o el de su tipo de solicitud. */
+    long timeoutOf(HttpServletRequest request) {
+        String header = request.getHeader(HEADER_TIMEOUT);
+        if (header != null) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested > 0) {
+                    return Math.min(requested, maxMillis);
+                }
+            } catch (NumberFormatException e) {
+                // Valor inválido: se usa el plazo por defecto
+            }
+        }
+        if ("POST".equals(request.getMethod()) && "/login".equals(request.getRequestURI())) {
+            return loginMillis;
+        }
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        return read ? readMillis : writeMillis;
+    }
+
+    /**
+     * Timeout de una sentencia o plazo agotado antes de lanzarla. Según la capa, llega
+     * como SQLTimeoutException o como QueryTimeoutException de Spring, JPA o Hibernate;
+     * en el login, envuelto además en una AuthenticationException.
+     */
+    public static boolean isDeadlineExceeded(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTimeoutException
+                    || cause instanceof org.springframework.dao.QueryTimeoutException
+                    || cause instanceof jakarta.persistence.QueryTimeoutException
+                    || cause instanceof org.hibernate.QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "Gateway Timeout");
+        body.put("message", "La solicitud superó su plazo de ejecución");
+
+        response.resetBuffer();
+        response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+    }
+}
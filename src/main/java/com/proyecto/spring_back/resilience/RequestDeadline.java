@@ -0,0 +1,44 @@
+package com.proyecto.spring_back.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plazo de la solicitud en curso, asociado al hilo que la atiende.
+ *
+ * Lo fija {@link DeadlineFilter} al entrar la solicitud y lo consulta
+ * {@link DeadlineDataSource} al pedir conexión y en cada sentencia (y SingleFlight
+ * al esperar una consulta ajena). Los hilos sin plazo (tareas
+ * {@code @Scheduled}, arranque) no tienen límite.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void start(long timeoutMillis) {
+        DEADLINE_NANOS.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    /** Milisegundos que quedan (negativo si ya pasó), o Long.MAX_VALUE sin plazo. */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+}
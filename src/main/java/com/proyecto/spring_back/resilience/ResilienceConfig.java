@@ -0,0 +1,81 @@
+package com.proyecto.spring_back.resilience;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+/**
+ * Registro de los filtros de protección frente a sobrecarga.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * El límite de concurrencia se aplica justo después de CORS y antes de Spring
+     * Security, para descartar carga sin gastar trabajo en autenticación.
+     */
+    @Bean
+    FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter() {
+        FilterRegistrationBean<ConcurrencyLimitFilter> bean = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(concurrencyLimiter));
+        bean.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return bean;
+    }
+
+    /**
+     * Plazo por solicitud, después del límite de concurrencia (las solicitudes rechazadas
+     * no llegan a tener plazo) y antes de Spring Security, que ya consulta usuarios en el
+     * login.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.deadline.enabled", havingValue = "true")
+    FilterRegistrationBean<DeadlineFilter> deadlineFilter(
+            @Value("${app.deadline.login-ms:5000}") long loginMillis,
+            @Value("${app.deadline.read-ms:3000}") long readMillis,
+            @Value("${app.deadline.write-ms:5000}") long writeMillis,
+            @Value("${app.deadline.max-ms:30000}") long maxMillis) {
+        FilterRegistrationBean<DeadlineFilter> bean = new FilterRegistrationBean<>(
+                new DeadlineFilter(loginMillis, readMillis, writeMillis, maxMillis));
+        bean.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return bean;
+    }
+
+    /** Estático para registrarse antes que el resto de beans, como el de SqlConfig. */
+    @Bean
+    @ConditionalOnProperty(name = "app.deadline.enabled", havingValue = "true")
+    static DeadlineDataSourcePostProcessor deadlineDataSourcePostProcessor() {
+        return new DeadlineDataSourcePostProcessor();
+    }
+
+    /**
+     * PriorityOrdered para envolver al pool antes que los post-procesadores sin orden (el
+     * de SqlConfig): DeadlineDataSource necesita ver el HikariDataSource para acotar la
+     * espera de conexión.
+     */
+    static final class DeadlineDataSourcePostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof DeadlineDataSource)) {
+                return new DeadlineDataSource(dataSource);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.proyecto.spring_back.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de cadenas, seguro para hilos y sin bloqueos.
+ *
+ * Los bits viven en un AtomicLongArray: añadir es un OR atómico por palabra y consultar
+ * sólo lee, así que lectores y escritores nunca se esperan. {@link #mightContain} nunca
+ * da falsos negativos; la probabilidad de falso positivo depende de los elementos
+ * añadidos frente a los previstos al dimensionarlo. No admite borrados.
+ *
+ * Las k posiciones salen de dos hashes de 64 bits (h1 + i·h2, Kirsch–Mitzenmacher).
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashFunctions;
+
+    private BloomFilter(long bits, int hashFunctions) {
+        this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+        this.bits = (long) words.length() << 6;
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * Filtro dimensionado para {@code expectedInsertions} elementos con una probabilidad
+     * de falso positivo {@code fpp}: m = -n·ln(p) / ln(2)² bits y k = m/n·ln(2) funciones.
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Dimensiones inválidas: n=" + expectedInsertions + ", p=" + fpp);
+        }
+        long bits = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        return new BloomFilter(bits, hashFunctions);
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    /** false si el valor seguro que no se añadió; true si puede que sí. */
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres, con mezcla final para repartir los bits altos
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /** Bytes del array de bits (sin las cabeceras de los objetos). */
+    public long memoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    /** Bits a 1; recorre todo el array. */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    /** Probabilidad de falso positivo con la ocupación actual: (bits a 1 / bits)^k. */
+    public double estimatedFpp() {
+        return Math.pow((double) bitCount() / bits, hashFunctions);
+    }
+}
@@ -0,0 +1,224 @@
+package com.proyecto.spring_back.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Almacén acotado de respuestas para solicitudes con cabecera Idempotency-Key.
+ *
+ * La primera solicitud con una clave ejecuta la operación y guarda su resultado;
+ * los reintentos con la misma clave reciben ese resultado sin volver a ejecutarla,
+ * y los duplicados concurrentes esperan a que termine la primera ejecución (como mucho
+ * {@code wait-timeout-ms}; después reciben {@link InProgressException}).
+ *
+ * Las entradas caducan tras un TTL y el número total está acotado (se expulsan las
+ * más antiguas ya terminadas: una ejecución en curso nunca se expulsa, o un reintento
+ * la lanzaría otra vez). Si la operación lanza una excepción la entrada se descarta, de
+ * modo que un reintento posterior vuelve a ejecutarla.
+ *
+ * La huella de la solicitud ({@link #fingerprint}) es un SHA-256: dos cuerpos distintos
+ * con la misma clave no pueden pasar por una repetición.
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * Resultado de {@link #execute}.
+     *
+     * @param value valor devuelto por la operación
+     * @param replayed true si se reutilizó una ejecución anterior
+     */
+    public record Result<T>(T value, boolean replayed) {
+    }
+
+    /** La clave ya se usó con una solicitud distinta. */
+    public static class KeyReuseException extends RuntimeException {
+        public KeyReuseException(String key) {
+            super(String.format("La clave de idempotencia %s ya se usó con otra solicitud", key));
+        }
+    }
+
+    /** La primera ejecución con la clave sigue en curso tras el tiempo de espera. */
+    public static class InProgressException extends RuntimeException {
+        public InProgressException(String key) {
+            super(String.format("La solicitud con la clave de idempotencia %s aún se está procesando", key));
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final String fingerprint;
+        final long expiresAt;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(String key, String fingerprint, long expiresAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Orden de inserción; como el TTL es fijo coincide con el orden de caducidad. Una
+    // entrada sale del mapa y de la cola a la vez (retire), así que queued cuenta sólo
+    // entradas vivas
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long waitTimeoutMillis;
+
+    @Autowired
+    public IdempotencyStore(
+            @Value("${app.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${app.idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Huella SHA-256 (hexadecimal) de los campos de una solicitud. Cada campo va precedido
+     * de su longitud para que ("ab", "c") y ("a", "bc") no coincidan.
+     */
+    public static String fingerprint(Object... fields) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object field : fields) {
+                byte[] bytes = String.valueOf(field).getBytes(StandardCharsets.UTF_8);
+                digest.update(Integer.toString(field == null ? -1 : bytes.length).getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) ':');
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave.
+     *
+     * @param key clave de idempotencia (ya acotada al usuario que la envía)
+     * @param fingerprint huella de la solicitud ({@link #fingerprint}), para detectar
+     *                    reutilización de la clave
+     * @param action operación a ejecutar
+     * @throws KeyReuseException si la clave se usó antes con una solicitud distinta
+     * @throws InProgressException si la primera ejecución no termina a tiempo
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(String key, String fingerprint, Supplier<T> action) {
+        long now = System.nanoTime();
+        Entry entry = new Entry(key, fingerprint, now + ttlNanos);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                break;
+            }
+            if (existing.expiresAt - now <= 0 && existing.result.isDone()) {
+                retire(existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new KeyReuseException(key);
+            }
+            return new Result<>((T) await(existing), true);
+        }
+
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evictOverflow();
+        try {
+            T value = action.get();
+            entry.result.complete(value);
+            return new Result<>(value, false);
+        } catch (RuntimeException | Error e) {
+            retire(entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.result.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new InProgressException(entry.key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InProgressException(entry.key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Retira la entrada del mapa y de la cola; sólo la primera llamada la descuenta. */
+    private void retire(Entry entry) {
+        entries.remove(entry.key, entry);
+        if (insertionOrder.remove(entry)) {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Expulsa las entradas terminadas más antiguas hasta volver al límite. Las que siguen
+     * en curso se saltan: el exceso temporal lo acotan las solicitudes concurrentes.
+     */
+    private void evictOverflow() {
+        Iterator<Entry> oldest = insertionOrder.iterator();
+        while (queued.get() > maxEntries && oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (entry.result.isDone()) {
+                retire(entry);
+            }
+        }
+    }
+
+    /** Elimina las entradas caducadas ya terminadas. */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Entry> oldest = insertionOrder.iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (entry.expiresAt - now > 0) {
+                return;
+            }
+            if (entry.result.isDone()) {
+                retire(entry);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Entradas en la cola de expulsión. */
+    int queuedCount() {
+        return queued.get();
+    }
+}
@@ -0,0 +1,130 @@
+package com.proyecto.spring_back.services;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Buffer de escritura diferida para la fecha del último login y el número de logins.
+ *
+ * Cada login correcto sólo combina un valor inmutable en un mapa concurrente por
+ * usuario: varios logins del mismo usuario entre dos vaciados quedan en una única
+ * entrada (último instante, suma de logins). Periódicamente el mapa se vacía en un
+ * solo batch JDBC, de modo que las escrituras son proporcionales a los usuarios
+ * distintos por intervalo y no al número de logins. Al cerrar la aplicación se vacía
+ * una última vez.
+ *
+ * Si el batch falla, las entradas se vuelven a combinar en el mapa y se reintentan en
+ * el siguiente vaciado.
+ */
+@Component
+public class LoginActivityRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginActivityRecorder.class);
+
+    private static final String UPDATE_SQL = "UPDATE users SET last_login_at = ?, "
+            + "login_count = COALESCE(login_count, 0) + ? WHERE username = ? AND deleted_at IS NULL";
+
+    /** Logins pendientes de un usuario. */
+    record Pending(Instant lastLoginAt, long count) {
+
+        Pending merge(Pending other) {
+            Instant latest = lastLoginAt.isAfter(other.lastLoginAt) ? lastLoginAt : other.lastLoginAt;
+            return new Pending(latest, count + other.count);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder flushedRows = new LongAdder();
+    private final int batchSize;
+
+    @Autowired
+    public LoginActivityRecorder(@Value("${app.login-activity.batch-size:500}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Los logins por /login pasan por el AuthenticationManager, que publica este evento
+     * al validar las credenciales.
+     */
+    @EventListener
+    public void onAuthenticationSuccess(AuthenticationSuccessEvent event) {
+        record(event.getAuthentication().getName(), Instant.now());
+    }
+
+    public void record(String username, Instant at) {
+        pending.merge(username, new Pending(at, 1), Pending::merge);
+    }
+
+    /**
+     * Escribe los logins acumulados en batches de {@code batchSize} filas.
+     */
+    @Scheduled(fixedDelayString = "${app.login-activity.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (String username : pending.keySet()) {
+            Pending entry = pending.remove(username);
+            if (entry == null) {
+                continue;
+            }
+            batch.add(new Object[] { Timestamp.from(entry.lastLoginAt()), entry.count(), username });
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            flushedRows.add(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron guardar {} actualizaciones de login; se reintentará", batch.size(), e);
+            for (Object[] row : batch) {
+                Pending entry = new Pending(((Timestamp) row[0]).toInstant(), (Long) row[1]);
+                pending.merge((String) row[2], entry, Pending::merge);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /** Usuarios con logins aún no escritos. */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /** Filas actualizadas desde el arranque. */
+    public long flushedRows() {
+        return flushedRows.sum();
+    }
+}
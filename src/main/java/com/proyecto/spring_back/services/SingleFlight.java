@@ -0,0 +1,138 @@
+package com.proyecto.spring_back.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import com.proyecto.spring_back.resilience.RequestDeadline;
+
+/**
+ * Agrupa llamadas concurrentes idénticas ("single flight").
+ *
+ * Mientras una consulta para una clave está en curso, el resto de hilos que piden la
+ * misma clave esperan y reciben ese mismo resultado en lugar de lanzar otra consulta.
+ * En cuanto la llamada termina se olvida: no es una caché, así que nunca se devuelve
+ * un resultado anterior a la llamada en curso.
+ *
+ * El número de claves en vuelo está acotado; por encima del límite las llamadas se
+ * ejecutan directamente sin agrupar.
+ *
+ * Si el resultado es mutable, cada seguidor recibe su propia copia (ver
+ * {@link #SingleFlight(int, UnaryOperator)}). Tras una escritura, {@link #forget} evita
+ * que las llamadas posteriores se unan a una consulta lanzada antes de ella.
+ *
+ * Un seguidor con plazo ({@link RequestDeadline}) espera como mucho el tiempo que le queda
+ * a su solicitud; después falla con QueryTimeoutException, como si la consulta fuera suya.
+ *
+ * @param <K> tipo de la clave (debe implementar equals/hashCode)
+ * @param <V> tipo del resultado
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private final LongAdder coalesced = new LongAdder();
+    private final UnaryOperator<V> copier;
+
+    /**
+     * @param maxKeys máximo de claves distintas agrupadas a la vez
+     */
+    public SingleFlight(int maxKeys) {
+        this(maxKeys, UnaryOperator.identity());
+    }
+
+    /**
+     * @param maxKeys máximo de claves distintas agrupadas a la vez
+     * @param copier copia del resultado que recibe cada seguidor; el primer hilo se queda
+     *               con el original
+     */
+    public SingleFlight(int maxKeys, UnaryOperator<V> copier) {
+        this.maxKeys = maxKeys;
+        this.copier = copier;
+    }
+
+    /**
+     * Ejecuta el loader para la clave, o se une a la ejecución que ya esté en curso.
+     *
+     * @param key clave de la consulta
+     * @param loader consulta real; sólo la ejecuta el primer hilo
+     * @return el resultado (una copia propia para los seguidores)
+     */
+    public V execute(K key, Supplier<V> loader) {
+        if (inFlight.size() >= maxKeys) {
+            return loader.get();
+        }
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return copier.apply(await(existing));
+        }
+        try {
+            V value = loader.get();
+            // Se retira antes de completar: quien llegue después lanza una consulta nueva
+            inFlight.remove(key, call);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private V await(CompletableFuture<V> call) {
+        long remaining = RequestDeadline.remainingMillis();
+        try {
+            if (remaining == Long.MAX_VALUE) {
+                return call.join();
+            }
+            return call.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Plazo de la solicitud agotado esperando la consulta en curso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (CompletionException | ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Desliga la llamada en curso de la clave: quien llegue después lanza una consulta
+     * nueva. Los seguidores ya unidos reciben el resultado de la llamada original.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /** Como {@link #forget}, para todas las claves. */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /** Número de llamadas que se resolvieron uniéndose a otra en curso. */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** Número de claves con una llamada en curso. */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,237 @@
+package com.proyecto.spring_back.services;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.events.UsersReplacedEvent;
+import com.proyecto.spring_back.repositories.UserRepository;
+
+/**
+ * Disponibilidad de username y email para el formulario de registro.
+ *
+ * Un {@link BloomFilter} con todos los usernames y emails responde en memoria a la gran
+ * mayoría de consultas (los valores libres): sólo un "quizá ocupado" del filtro llega a
+ * la base de datos, que da la respuesta exacta. Las claves se normalizan a minúsculas,
+ * así que el filtro nunca da un falso negativo aunque la base de datos compare sin
+ * distinguir mayúsculas.
+ *
+ * El filtro se construye por JDBC al arrancar, recibe las altas y modificaciones
+ * confirmadas y se reconstruye periódicamente: un filtro de Bloom no admite borrados,
+ * de modo que los usuarios borrados sólo dejan de costar una consulta tras la
+ * reconstrucción. Durante una reconstrucción los cambios se añaden también al filtro
+ * nuevo. Hasta la primera carga todas las consultas van a la base de datos.
+ */
+@Component
+public class UserAvailability {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAvailability.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final long minExpectedInsertions;
+    private final double fpp;
+
+    private volatile BloomFilter filter;
+    // Filtro en construcción; los cambios confirmados mientras tanto se añaden a los dos
+    private volatile BloomFilter building;
+    private final Object rebuildLock = new Object();
+    private volatile long expectedInsertions;
+    private volatile Instant rebuiltAt;
+    private volatile long rebuildMs;
+
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder deletions = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder filterNegatives = new LongAdder();
+    private final LongAdder databaseChecks = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /** Resultado de una comprobación: si el valor está libre y si hizo falta la base de datos. */
+    public record Result(boolean available, boolean checkedDatabase) {
+    }
+
+    @Autowired
+    public UserAvailability(@Value("${app.users.availability.expected-insertions:100000}") long minExpectedInsertions,
+            @Value("${app.users.availability.fpp:0.01}") double fpp) {
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.fpp = fpp;
+    }
+
+    public Result checkUsername(String username) {
+        return check(usernameKey(username), () -> userRepository.existsByUsername(username));
+    }
+
+    public Result checkEmail(String email) {
+        return check(emailKey(email), () -> userRepository.existsByEmail(email));
+    }
+
+    private Result check(String key, BooleanSupplier existsInDatabase) {
+        queries.increment();
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(key)) {
+            filterNegatives.increment();
+            return new Result(true, false);
+        }
+        databaseChecks.increment();
+        boolean exists = existsInDatabase.getAsBoolean();
+        if (!exists && current != null) {
+            falsePositives.increment();
+        }
+        return new Result(!exists, true);
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + email.toLowerCase(Locale.ROOT);
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.type() == UserChangedEvent.Type.DELETED) {
+            deletions.increment();
+            return;
+        }
+        User user = event.user();
+        // building antes que filter: si aquí aún no hay reconstrucción en curso, el cambio
+        // ya estaba confirmado antes de que empiece su lectura y ésta lo incluirá
+        BloomFilter next = building;
+        BloomFilter current = filter;
+        for (BloomFilter target : new BloomFilter[] { next, current }) {
+            if (target != null) {
+                add(target, user.getUsername(), user.getEmail());
+            }
+        }
+        if (event.type() == UserChangedEvent.Type.CREATED) {
+            insertions.increment();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onUsersReplaced(UsersReplacedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Alta o modificación en otra instancia (UserChangeLog): sin sus claves el filtro
+     * daría por libres valores ya ocupados.
+     */
+    @EventListener
+    public void onRemoteChange(RemoteUserChangeEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                BloomFilter next = building;
+                BloomFilter current = filter;
+                jdbcTemplate.query("select username, email from users where id = ?", rs -> {
+                    for (BloomFilter target : new BloomFilter[] { next, current }) {
+                        if (target != null) {
+                            add(target, rs.getString(1), rs.getString(2));
+                        }
+                    }
+                }, event.userId());
+                if (event.type() == RemoteUserChangeEvent.Type.CREATED) {
+                    insertions.increment();
+                }
+            }
+            case DELETED -> deletions.increment();
+            case REPLACED -> rebuild();
+        }
+    }
+
+    private static void add(BloomFilter target, String username, String email) {
+        if (username != null) {
+            target.put(usernameKey(username));
+        }
+        if (email != null) {
+            target.put(emailKey(email));
+        }
+    }
+
+    /**
+     * Construye un filtro nuevo con los usuarios vigentes y lo publica. Se dimensiona para
+     * el doble de los usuarios actuales (con un mínimo configurable), dejando margen a las
+     * altas hasta la próxima reconstrucción.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.users.availability.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.users.availability.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            Long users = jdbcTemplate.queryForObject("select count(*) from users where deleted_at is null", Long.class);
+            long expected = Math.max(minExpectedInsertions, 2 * (users == null ? 0 : users));
+            // Cada usuario aporta dos claves (username y email)
+            BloomFilter next = BloomFilter.create(2 * expected, fpp);
+            building = next;
+            try {
+                jdbcTemplate.query("select username, email from users where deleted_at is null",
+                        rs -> {
+                            add(next, rs.getString(1), rs.getString(2));
+                        });
+                filter = next;
+            } finally {
+                building = null;
+            }
+            expectedInsertions = expected;
+            insertions.reset();
+            insertions.add(users == null ? 0 : users);
+            deletions.reset();
+            rebuiltAt = Instant.now();
+            rebuildMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("Filtro de disponibilidad construido: {} usuarios, {} KB en {} ms", users,
+                    next.memoryBytes() / 1024, rebuildMs);
+        }
+    }
+
+    /** Tamaño del filtro y tasas de falsos positivos estimada y observada. */
+    public Map<String, Object> stats() {
+        BloomFilter current = filter;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", current != null);
+        if (current != null) {
+            stats.put("bits", current.bitSize());
+            stats.put("hashFunctions", current.hashFunctions());
+            stats.put("memoryBytes", current.memoryBytes());
+            stats.put("expectedUsers", expectedInsertions);
+            stats.put("users", insertions.sum());
+            stats.put("deletionsSinceRebuild", deletions.sum());
+            stats.put("targetFpp", fpp);
+            stats.put("estimatedFpp", current.estimatedFpp());
+            stats.put("rebuiltAt", rebuiltAt);
+            stats.put("rebuildMs", rebuildMs);
+        }
+        long negatives = filterNegatives.sum();
+        long fps = falsePositives.sum();
+        stats.put("queries", queries.sum());
+        stats.put("answeredByFilter", negatives);
+        stats.put("databaseChecks", databaseChecks.sum());
+        stats.put("falsePositives", fps);
+        // De las consultas por valores libres, fracción que el filtro no supo descartar
+        stats.put("observedFpp", negatives + fps == 0 ? 0.0 : (double) fps / (negatives + fps));
+        return stats;
+    }
+}
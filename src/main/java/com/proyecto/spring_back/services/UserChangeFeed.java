@@ -0,0 +1,290 @@
+package com.proyecto.spring_back.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.events.UsersReplacedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Flujo de cambios de usuarios para clientes Server-Sent Events.
+ *
+ * Los cambios se reciben tras el commit y se numeran de forma consecutiva. Los últimos
+ * N quedan en un buffer circular para que un cliente que se reconecta con
+ * {@code Last-Event-ID} reciba lo que se perdió; si ese id ya salió del buffer se le
+ * envía un evento {@code reset} para que recargue el listado completo.
+ *
+ * Los ids llevan delante una época aleatoria de esta instancia ({@code época-número}):
+ * la numeración empieza de nuevo en cada arranque y es distinta en cada nodo, así que un
+ * id de otra época (otro nodo tras el balanceador, o anterior a un reinicio) también
+ * recibe {@code reset} en lugar de reanudarse desde una posición que no le corresponde.
+ *
+ * Cada suscriptor tiene una cola acotada que vacía un hilo virtual propio. Quien
+ * escribe sólo encola (nunca bloquea): si un cliente lento llena su cola, se cierra
+ * su conexión y al reconectarse se recupera desde el buffer.
+ */
+@Component
+public class UserChangeFeed {
+
+    /** Entrada numerada del flujo. */
+    record FeedEntry(long id, String name, Object data) {
+    }
+
+    private static final FeedEntry HEARTBEAT = new FeedEntry(-1, "heartbeat", null);
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final FeedEntry[] ring;
+    private final Object ringLock = new Object();
+    private long lastId;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final int subscriberQueueSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+
+    @Autowired
+    public UserChangeFeed(
+            @Value("${app.users.changes.buffer-size:1024}") int bufferSize,
+            @Value("${app.users.changes.subscriber-queue-size:256}") int subscriberQueueSize,
+            @Value("${app.users.changes.max-subscribers:1000}") int maxSubscribers,
+            @Value("${app.users.changes.timeout-ms:1800000}") long timeoutMillis) {
+        this.ring = new FeedEntry[bufferSize];
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Registra un cambio confirmado y lo reparte a los suscriptores.
+     */
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", event.userId());
+        data.put("user", event.type() == UserChangedEvent.Type.DELETED ? null : event.user());
+        publish(event.type().name().toLowerCase(), data);
+    }
+
+    /** Tras restaurar una instantánea los clientes deben recargar el listado completo. */
+    @TransactionalEventListener
+    public void onUsersReplaced(UsersReplacedEvent event) {
+        publish("reset", Map.of("source", event.source(), "users", event.users()));
+    }
+
+    /**
+     * Cambio hecho por otra instancia: sólo lleva el id, así que el cliente relee el
+     * usuario ({@code user} va a null). REPLACED equivale a una restauración.
+     */
+    @EventListener
+    public void onRemoteChange(RemoteUserChangeEvent event) {
+        if (event.type() == RemoteUserChangeEvent.Type.REPLACED) {
+            publish("reset", Map.of("source", event.nodeId()));
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", event.userId());
+        data.put("user", null);
+        publish(event.type().name().toLowerCase(), data);
+    }
+
+    void publish(String name, Object data) {
+        // El reparto se hace dentro del lock para que todos los suscriptores vean los
+        // ids en orden; offer() sobre colas acotadas no bloquea
+        synchronized (ringLock) {
+            FeedEntry entry = new FeedEntry(++lastId, name, data);
+            ring[(int) (entry.id() % ring.length)] = entry;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(entry);
+            }
+        }
+    }
+
+    /**
+     * Abre una suscripción nueva.
+     *
+     * @param lastEventId último id recibido por el cliente, o null si es la primera conexión
+     * @return el emisor SSE, o null si se alcanzó el máximo de suscriptores
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        return subscribe(lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(String lastEventId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (ringLock) {
+            resume(lastEventId).forEach(subscriber::offer);
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    /**
+     * Lo que recibe primero un cliente que se reconecta: las entradas posteriores a su
+     * último id o, si no se pueden reconstruir (id de otra época, desconocido, fuera del
+     * buffer o más de las que caben en su cola), un único {@code reset}.
+     */
+    List<FeedEntry> resume(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        synchronized (ringLock) {
+            Long resumeFrom = parseId(lastEventId.trim());
+            List<FeedEntry> missed = resumeFrom == null ? null : entriesAfter(resumeFrom);
+            if (missed == null || missed.size() > subscriberQueueSize) {
+                return List.of(new FeedEntry(-1, "reset", Map.of("lastEventId", eventId(lastId))));
+            }
+            return missed;
+        }
+    }
+
+    /**
+     * Entradas posteriores al id indicado, o null si alguna ya no está en el buffer.
+     */
+    private List<FeedEntry> entriesAfter(long id) {
+        long oldest = Math.max(1, lastId - ring.length + 1);
+        if (id < 0 || id > lastId) {
+            return null;
+        }
+        if (id + 1 < oldest) {
+            return null;
+        }
+        List<FeedEntry> entries = new ArrayList<>();
+        for (long i = id + 1; i <= lastId; i++) {
+            entries.add(ring[(int) (i % ring.length)]);
+        }
+        return entries;
+    }
+
+    /** Id SSE de una entrada: {@code época-número}. */
+    String eventId(long id) {
+        return epoch + "-" + id;
+    }
+
+    /** Número de un id de esta época, o null si es de otra o no es válido. */
+    private Long parseId(String value) {
+        if (!value.startsWith(epoch + "-")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Comentario periódico para mantener viva la conexión y detectar clientes caídos. */
+    @Scheduled(fixedDelayString = "${app.users.changes.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Suscriptor con cola acotada; a lo sumo un hilo la vacía a la vez.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<FeedEntry> queue = new ArrayBlockingQueue<>(subscriberQueueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(FeedEntry entry) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(entry) && entry != HEARTBEAT) {
+                overflowed = true;
+            }
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    FeedEntry entry;
+                    while (!closed && (entry = queue.poll()) != null) {
+                        send(entry);
+                    }
+                    if (overflowed && !closed) {
+                        // Cliente demasiado lento: se cierra y se recupera al reconectar
+                        close();
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    emitter.completeWithError(e);
+                } finally {
+                    draining.set(false);
+                }
+            } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(FeedEntry entry) throws IOException {
+            if (entry == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+                return;
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(entry.name()).data(entry.data(), MediaType.APPLICATION_JSON);
+            if (entry.id() > 0) {
+                event.id(eventId(entry.id()));
+            }
+            emitter.send(event);
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.proyecto.spring_back.services;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.events.UsersReplacedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Coherencia de las cachés en memoria entre instancias, sin broker de mensajes.
+ *
+ * Cada cambio de usuarios (UserChangedEvent) y cada restauración completa
+ * (UsersReplacedEvent) añade una fila a user_change_log en la misma transacción que el
+ * cambio (fase BEFORE_COMMIT): si el cambio se confirma, su fila también. Cada instancia
+ * sondea la tabla cada {@code poll-interval-ms} leyendo las filas con {@code seq} mayor
+ * que la última vista, ignora las suyas (ya aplicadas por el evento local) y publica un
+ * {@link RemoteUserChangeEvent} por cada una de las demás. Un cambio confirmado en otra
+ * instancia llega así a las cachés locales en el siguiente sondeo: {@code poll-interval-ms}
+ * más lo que tarde el sondeo en curso. El sondeo tiene su propio hilo; en el planificador
+ * compartido esperaría detrás de la purga, las reconstrucciones o las reconciliaciones.
+ *
+ * Los {@code seq} se asignan al insertar pero las transacciones confirman en cualquier
+ * orden, así que un salto en la secuencia puede ser una transacción aún abierta. Los
+ * huecos se recuerdan y se vuelven a consultar en cada sondeo hasta que aparecen o pasa
+ * {@code gap-timeout-ms} (transacción deshecha). Si hay demasiados huecos o el nodo pasa
+ * más tiempo sin sondear que la retención del registro, se recarga todo (REPLACED).
+ *
+ * La compactación borra por rangos de {@code seq} las filas más antiguas que
+ * {@code retention-seconds}, que debe superar con holgura a {@code gap-timeout-ms}.
+ */
+@Component
+public class UserChangeLog {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeLog.class);
+
+    private static final String REPLACED = RemoteUserChangeEvent.Type.REPLACED.name();
+    private static final String INSERT_SQL = "INSERT INTO user_change_log (user_id, change_type, node_id, created_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_AFTER_SQL = "SELECT seq, user_id, change_type, node_id FROM user_change_log WHERE seq > ? ORDER BY seq";
+    private static final String SELECT_IN_SQL = "SELECT seq, user_id, change_type, node_id FROM user_change_log WHERE seq IN (%s) ORDER BY seq";
+    private static final int MAX_GAPS = 1000;
+
+    private record Change(long seq, Long userId, String type, String nodeId) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final String nodeId;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long retentionSeconds;
+    private final long pollIntervalMs;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-change-log").daemon().factory());
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    private final Object pollLock = new Object();
+    private long highestSeq = -1;
+    // seq no vistos por debajo de highestSeq -> instante (nanoTime) en que se detectaron
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+    private long lastPollNanos;
+    private volatile Instant lastPollAt;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder ownSkipped = new LongAdder();
+    private final LongAdder gapsFilled = new LongAdder();
+    private final LongAdder gapsExpired = new LongAdder();
+    private final LongAdder fullReloads = new LongAdder();
+    private final LongAdder compacted = new LongAdder();
+
+    @Autowired
+    public UserChangeLog(@Value("${app.users.change-log.node-id:}") String nodeId,
+            @Value("${app.users.change-log.batch-size:500}") int batchSize,
+            @Value("${app.users.change-log.gap-timeout-ms:60000}") long gapTimeoutMs,
+            @Value("${app.users.change-log.retention-seconds:86400}") long retentionSeconds,
+            @Value("${app.users.change-log.poll-interval-ms:1000}") long pollIntervalMs) {
+        if (retentionSeconds * 1000 <= gapTimeoutMs) {
+            throw new IllegalArgumentException("app.users.change-log.retention-seconds debe superar a gap-timeout-ms");
+        }
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString().substring(0, 8) : nodeId;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMs);
+        this.retentionSeconds = retentionSeconds;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onUserChanged(UserChangedEvent event) {
+        append(event.type().name(), event.userId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onUsersReplaced(UsersReplacedEvent event) {
+        append(REPLACED, null);
+    }
+
+    private void append(String type, Long userId) {
+        jdbcTemplate.update(INSERT_SQL, userId, type, nodeId, Timestamp.from(Instant.now()));
+        appended.increment();
+    }
+
+    /**
+     * Fija la posición inicial en el último {@code seq} existente antes de que las cachés
+     * se carguen (ApplicationReadyEvent): lo anterior ya está en la base de datos que leen.
+     */
+    public void start() {
+        synchronized (pollLock) {
+            if (highestSeq < 0) {
+                Long max = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM user_change_log", Long.class);
+                highestSeq = max == null ? 0 : max;
+                lastPollNanos = System.nanoTime();
+                log.info("Registro de cambios: nodo {} desde seq {}", nodeId, highestSeq);
+            }
+        }
+    }
+
+    /** Fija la posición inicial y arranca el sondeo periódico en el hilo propio. */
+    @EventListener(ContextRefreshedEvent.class)
+    public void startPolling() {
+        start();
+        if (polling.compareAndSet(false, true)) {
+            poller.scheduleWithFixedDelay(this::pollQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría la tarea periódica: se anota y se reintenta en el siguiente
+            log.warn("Registro de cambios: sondeo fallido", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdown();
+    }
+
+    /**
+     * Aplica los cambios de otras instancias confirmados desde el último sondeo.
+     *
+     * @return cambios de otras instancias publicados como RemoteUserChangeEvent
+     */
+    public int poll() {
+        synchronized (pollLock) {
+            start();
+            long now = System.nanoTime();
+            if (now - lastPollNanos > TimeUnit.SECONDS.toNanos(retentionSeconds)) {
+                // La compactación pudo borrar filas que este nodo no llegó a leer
+                reloadAll("sin sondear durante más que la retención");
+            }
+            int published = pollGaps();
+            List<Change> changes;
+            do {
+                changes = query(SELECT_AFTER_SQL, highestSeq);
+                for (Change change : changes) {
+                    recordGaps(change.seq(), now);
+                    highestSeq = change.seq();
+                    published += apply(change);
+                }
+            } while (changes.size() == batchSize);
+            expireGaps(now);
+            lastPollNanos = now;
+            lastPollAt = Instant.now();
+            return published;
+        }
+    }
+
+    private List<Change> query(String sql, Object... args) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            ps.setMaxRows(batchSize);
+            return ps;
+        }, (rs, rowNum) -> new Change(rs.getLong(1), rs.getObject(2, Long.class), rs.getString(3), rs.getString(4)));
+    }
+
+    private void recordGaps(long seq, long now) {
+        if (seq - highestSeq - 1 + gaps.size() > MAX_GAPS) {
+            // Demasiados huecos para seguirlos uno a uno: se descartan y se recarga todo
+            gaps.clear();
+            reloadAll("más de " + MAX_GAPS + " huecos en la secuencia");
+            return;
+        }
+        for (long missing = highestSeq + 1; missing < seq; missing++) {
+            gaps.put(missing, now);
+        }
+    }
+
+    private int pollGaps() {
+        if (gaps.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(gaps.size(), "?"));
+        List<Change> found = query(String.format(SELECT_IN_SQL, placeholders), gaps.keySet().toArray());
+        int published = 0;
+        for (Change change : found) {
+            gaps.remove(change.seq());
+            gapsFilled.increment();
+            published += apply(change);
+        }
+        return published;
+    }
+
+    private void expireGaps(long now) {
+        Iterator<Long> detectedAt = gaps.values().iterator();
+        while (detectedAt.hasNext()) {
+            if (now - detectedAt.next() > gapTimeoutNanos) {
+                detectedAt.remove();
+                gapsExpired.increment();
+            }
+        }
+    }
+
+    private int apply(Change change) {
+        if (nodeId.equals(change.nodeId())) {
+            ownSkipped.increment();
+            return 0;
+        }
+        RemoteUserChangeEvent.Type type;
+        try {
+            type = RemoteUserChangeEvent.Type.valueOf(change.type());
+        } catch (IllegalArgumentException e) {
+            log.warn("Tipo de cambio desconocido en user_change_log (seq {}): {}", change.seq(), change.type());
+            return 0;
+        }
+        eventPublisher.publishEvent(new RemoteUserChangeEvent(type, change.userId(), change.nodeId()));
+        applied.increment();
+        return 1;
+    }
+
+    private void reloadAll(String reason) {
+        log.warn("Registro de cambios: recarga completa de las cachés ({})", reason);
+        fullReloads.increment();
+        eventPublisher.publishEvent(new RemoteUserChangeEvent(RemoteUserChangeEvent.Type.REPLACED, null, nodeId));
+    }
+
+    /**
+     * Borra las entradas más antiguas que la retención, por rangos de {@code seq} de
+     * {@code batch-size} filas, cada uno en su propia sentencia.
+     *
+     * @return entradas borradas
+     */
+    @Scheduled(initialDelayString = "${app.users.change-log.compact-interval-ms:600000}",
+            fixedDelayString = "${app.users.change-log.compact-interval-ms:600000}")
+    public int compact() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minusSeconds(retentionSeconds));
+        Long upTo = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM user_change_log WHERE created_at < ?", Long.class, cutoff);
+        if (upTo == null) {
+            return 0;
+        }
+        Long from = jdbcTemplate.queryForObject("SELECT MIN(seq) FROM user_change_log", Long.class);
+        int total = 0;
+        for (long start = from; start <= upTo; start += batchSize) {
+            total += jdbcTemplate.update("DELETE FROM user_change_log WHERE seq >= ? AND seq < ?", start,
+                    Math.min(start + batchSize, upTo + 1));
+        }
+        compacted.add(total);
+        if (total > 0) {
+            log.info("Registro de cambios compactado: {} entradas hasta seq {}", total, upTo);
+        }
+        return total;
+    }
+
+    /** Posición y contadores del registro, para el endpoint de administración. */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (pollLock) {
+            stats.put("nodeId", nodeId);
+            stats.put("highestSeq", highestSeq);
+            stats.put("pendingGaps", gaps.size());
+        }
+        stats.put("lastPollAt", lastPollAt);
+        stats.put("appended", appended.sum());
+        stats.put("applied", applied.sum());
+        stats.put("ownSkipped", ownSkipped.sum());
+        stats.put("gapsFilled", gapsFilled.sum());
+        stats.put("gapsExpired", gapsExpired.sum());
+        stats.put("fullReloads", fullReloads.sum());
+        stats.put("compacted", compacted.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,85 @@
+package com.proyecto.spring_back.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.events.UsersReplacedEvent;
+import com.proyecto.spring_back.repositories.UserRepository;
+
+/**
+ * Total de usuarios en memoria para no lanzar un {@code SELECT count(*)} en cada página.
+ *
+ * Se carga con la primera consulta, se ajusta con cada alta o baja confirmada y se
+ * reconcilia periódicamente con la base de datos, lo que corrige cualquier deriva
+ * (cambios hechos fuera de la aplicación). Los de otras instancias llegan por
+ * UserChangeLog.
+ */
+@Component
+public class UserCountCache {
+
+    private static final long UNKNOWN = -1;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final AtomicLong count = new AtomicLong(UNKNOWN);
+
+    /** Total de usuarios; sólo consulta la base de datos si aún no se conoce. */
+    public long get() {
+        long current = count.get();
+        if (current != UNKNOWN) {
+            return current;
+        }
+        long loaded = userRepository.count();
+        count.compareAndSet(UNKNOWN, loaded);
+        return count.get();
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> adjust(1);
+            case DELETED -> adjust(-1);
+            default -> {
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onUsersReplaced(UsersReplacedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteUserChangeEvent event) {
+        switch (event.type()) {
+            case CREATED -> adjust(1);
+            case DELETED -> adjust(-1);
+            case REPLACED -> invalidate();
+            default -> {
+            }
+        }
+    }
+
+    private void adjust(long delta) {
+        count.getAndUpdate(current -> current == UNKNOWN ? UNKNOWN : Math.max(0, current + delta));
+    }
+
+    /** Sustituye el valor en memoria por el de la base de datos. */
+    @Scheduled(fixedDelayString = "${app.users.count.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        count.set(userRepository.count());
+    }
+
+    /** Olvida el valor actual; la próxima lectura consulta la base de datos. */
+    public void invalidate() {
+        count.set(UNKNOWN);
+    }
+}
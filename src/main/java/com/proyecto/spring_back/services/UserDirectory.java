@@ -0,0 +1,300 @@
+package com.proyecto.spring_back.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.events.UsersReplacedEvent;
+import com.proyecto.spring_back.models.PublicUser;
+
+/**
+ * Directorio en memoria de los campos públicos de los usuarios.
+ *
+ * Sirve {@code GET /api/users} y {@code /api/users/page/{page}} sin tocar la base de
+ * datos. El contenido es un array inmutable ordenado por id que se publica con una
+ * referencia volátil: los lectores nunca se bloquean y obtienen vistas (sin copiar) de
+ * la instantánea vigente. Cada cambio confirmado en UserServiceImpl construye un array
+ * nuevo (copy-on-write) bajo un lock que sólo comparten los escritores.
+ *
+ * Un cambio no se aplica con la copia del usuario que trae el evento sino releyendo su
+ * fila confirmada: los listeners tras el commit de dos transacciones se ejecutan en
+ * cualquier orden, y la copia de la que llega última puede ser la más antigua (o la de
+ * una edición que leyó el usuario antes de que otra lo borrara).
+ *
+ * Se carga por JDBC al arrancar la aplicación; hasta entonces {@link #isLoaded()}
+ * devuelve false y los listados siguen yendo a la base de datos. Los roles se
+ * comparten entre usuarios (una única instancia por combinación de roles).
+ *
+ * Se activa con {@code app.users.directory.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.users.directory.enabled", havingValue = "true")
+public class UserDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    private static final Comparator<PublicUser> BY_ID = Comparator.comparing(PublicUser::id);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Instantánea inmutable del directorio. La versión cambia con cada modificación, de
+     * modo que sirve como clave de validez para cualquier dato derivado del contenido.
+     */
+    public record Snapshot(long version, PublicUser[] users) {
+
+        /** Todos los usuarios, como vista de sólo lectura. */
+        public List<PublicUser> findAll() {
+            return Collections.unmodifiableList(Arrays.asList(users));
+        }
+
+        /** Página con total exacto; el contenido es una vista sin copia. */
+        public Page<PublicUser> page(Pageable pageable) {
+            return new PageImpl<>(content(pageable), pageable, users.length);
+        }
+
+        public Slice<PublicUser> slice(Pageable pageable) {
+            List<PublicUser> content = content(pageable);
+            return new SliceImpl<>(content, pageable, pageable.getOffset() + content.size() < users.length);
+        }
+
+        private List<PublicUser> content(Pageable pageable) {
+            int from = (int) Math.min(pageable.getOffset(), users.length);
+            int to = Math.min(from + pageable.getPageSize(), users.length);
+            return Collections.unmodifiableList(Arrays.asList(users).subList(from, to));
+        }
+    }
+
+    private volatile Snapshot snapshot;
+    private volatile Instant loadedAt;
+    private final Object writeLock = new Object();
+    private final LongAdder updates = new LongAdder();
+    // Listas de roles ya vistas, para que usuarios con los mismos roles compartan instancia
+    private final Map<List<PublicUser.PublicRole>, List<PublicUser.PublicRole>> roleSets = new HashMap<>();
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /** Instantánea vigente, o null si aún no se ha cargado. */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    private void publish(PublicUser[] users) {
+        Snapshot current = snapshot;
+        snapshot = new Snapshot(current == null ? 1 : current.version() + 1, users);
+    }
+
+    /**
+     * Carga inicial. Se hace bajo el lock de escritura para que los cambios que se
+     * confirmen mientras tanto se apliquen después, sobre la instantánea cargada. Va antes
+     * que el resto de listeners de ApplicationReadyEvent, en particular del calentamiento.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void load() {
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            List<PublicUser> loaded = new ArrayList<>();
+            Map<Long, List<PublicUser.PublicRole>> rolesByUser = new HashMap<>();
+            // JDBC no pasa por @SQLRestriction de User: los borrados lógicos se filtran aquí
+            jdbcTemplate.query("select ur.user_id, r.id, r.name from users_roles ur join roles r on r.id = ur.role_id"
+                    + " join users u on u.id = ur.user_id where u.deleted_at is null",
+                    rs -> {
+                        rolesByUser.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                                .add(new PublicUser.PublicRole(rs.getLong(2), rs.getString(3)));
+                    });
+            jdbcTemplate.query("select id, name, lastname, username, email from users where deleted_at is null order by id", rs -> {
+                long id = rs.getLong(1);
+                loaded.add(new PublicUser(id, rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                        internRoles(rolesByUser.getOrDefault(id, List.of()))));
+            });
+            replaceAll(loaded);
+            log.info("Directorio de usuarios cargado: {} usuarios en {} ms", loaded.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /** Sustituye todo el contenido. */
+    void replaceAll(List<PublicUser> loaded) {
+        synchronized (writeLock) {
+            PublicUser[] sorted = loaded.toArray(PublicUser[]::new);
+            Arrays.sort(sorted, BY_ID);
+            publish(sorted);
+            loadedAt = Instant.now();
+        }
+    }
+
+    /** Tras restaurar una instantánea se vuelve a leer todo. */
+    @TransactionalEventListener
+    public void onUsersReplaced(UsersReplacedEvent event) {
+        load();
+    }
+
+    /** Cambio local confirmado: como los remotos, se relee la fila (ver la clase). */
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        refresh(event.userId());
+    }
+
+    /** Cambio hecho por otra instancia (UserChangeLog): se relee ese usuario. */
+    @EventListener
+    public void onRemoteChange(RemoteUserChangeEvent event) {
+        if (event.type() == RemoteUserChangeEvent.Type.REPLACED) {
+            load();
+        } else {
+            refresh(event.userId());
+        }
+    }
+
+    /** Vuelve a leer un usuario de la base de datos; si ya no existe, lo quita. */
+    void refresh(Long id) {
+        synchronized (writeLock) {
+            if (snapshot == null) {
+                // Aún no cargado: la carga leerá el estado ya confirmado
+                return;
+            }
+            List<PublicUser.PublicRole> roles = jdbcTemplate.query(
+                    "select r.id, r.name from users_roles ur join roles r on r.id = ur.role_id where ur.user_id = ?",
+                    (rs, rowNum) -> new PublicUser.PublicRole(rs.getLong(1), rs.getString(2)), id);
+            List<PublicUser> found = jdbcTemplate.query(
+                    "select id, name, lastname, username, email from users where id = ? and deleted_at is null",
+                    (rs, rowNum) -> new PublicUser(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getString(5), internRoles(roles)), id);
+            if (found.isEmpty()) {
+                remove(id);
+            } else {
+                upsert(found.get(0));
+            }
+            updates.increment();
+        }
+    }
+
+    private void upsert(PublicUser user) {
+        PublicUser[] current = snapshot.users();
+        int index = Arrays.binarySearch(current, user, BY_ID);
+        PublicUser[] next;
+        if (index >= 0) {
+            next = current.clone();
+            next[index] = user;
+        } else {
+            int insertion = -index - 1;
+            next = new PublicUser[current.length + 1];
+            System.arraycopy(current, 0, next, 0, insertion);
+            next[insertion] = user;
+            System.arraycopy(current, insertion, next, insertion + 1, current.length - insertion);
+        }
+        publish(next);
+    }
+
+    private void remove(Long id) {
+        PublicUser[] current = snapshot.users();
+        int index = Arrays.binarySearch(current, new PublicUser(id, null, null, null, null, null), BY_ID);
+        if (index < 0) {
+            return;
+        }
+        PublicUser[] next = new PublicUser[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+        publish(next);
+    }
+
+    private List<PublicUser.PublicRole> internRoles(List<PublicUser.PublicRole> roles) {
+        List<PublicUser.PublicRole> sorted = new ArrayList<>(roles);
+        sorted.sort(Comparator.comparing(PublicUser.PublicRole::id));
+        return roleSets.computeIfAbsent(List.copyOf(sorted), key -> key);
+    }
+
+    /** Todos los usuarios de la instantánea vigente. */
+    public List<PublicUser> findAll() {
+        return snapshot.findAll();
+    }
+
+    public Page<PublicUser> page(Pageable pageable) {
+        return snapshot.page(pageable);
+    }
+
+    public Slice<PublicUser> slice(Pageable pageable) {
+        return snapshot.slice(pageable);
+    }
+
+    /**
+     * Estimación del tamaño en memoria de la instantánea, suponiendo una JVM de 64 bits
+     * con oops comprimidos (cabecera de 12 bytes, referencias de 4) y strings Latin-1.
+     */
+    public Map<String, Object> footprint() {
+        Snapshot current = snapshot;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("loaded", current != null);
+        if (current == null) {
+            return report;
+        }
+        PublicUser[] snapshot = current.users();
+        long userBytes = align(16 + 4L * snapshot.length);
+        long stringBytes = 0;
+        for (PublicUser user : snapshot) {
+            userBytes += align(12 + 6 * 4) + align(12 + 8);
+            stringBytes += stringBytes(user.name()) + stringBytes(user.lastname())
+                    + stringBytes(user.username()) + stringBytes(user.email());
+        }
+        long roleBytes = 0;
+        synchronized (writeLock) {
+            for (List<PublicUser.PublicRole> roles : roleSets.keySet()) {
+                roleBytes += align(16 + 4L * roles.size());
+                for (PublicUser.PublicRole role : roles) {
+                    roleBytes += align(12 + 2 * 4) + align(12 + 8) + stringBytes(role.name());
+                }
+            }
+            report.put("users", snapshot.length);
+            report.put("distinctRoleSets", roleSets.size());
+        }
+        report.put("estimatedBytes", userBytes + stringBytes + roleBytes);
+        report.put("userBytes", userBytes);
+        report.put("stringBytes", stringBytes);
+        report.put("roleBytes", roleBytes);
+        report.put("version", current.version());
+        report.put("loadedAt", loadedAt);
+        report.put("incrementalUpdates", updates.sum());
+        return report;
+    }
+
+    private static long stringBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        // String (cabecera + hash + coder + referencia) más su byte[]
+        return align(24) + align(16 + value.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
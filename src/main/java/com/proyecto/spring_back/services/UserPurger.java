@@ -0,0 +1,119 @@
+package com.proyecto.spring_back.services;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Borrado físico, en segundo plano, de los usuarios con borrado lógico.
+ *
+ * {@code DELETE /api/users/{id}} sólo marca {@code deleted_at}; este proceso borra
+ * después las filas de users_roles y de users en lotes de {@code batch-size} usuarios,
+ * cada lote en su propia transacción corta, con una pausa entre lotes y un máximo de
+ * lotes por ejecución. Así una limpieza masiva no retiene bloqueos ni compite con las
+ * escrituras de las peticiones, y la ejecución (que comparte el hilo del planificador con
+ * el resto de tareas {@code @Scheduled}) está acotada.
+ *
+ * Sólo se purgan los usuarios borrados hace más de {@code grace-period-seconds}.
+ */
+@Component
+public class UserPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPurger.class);
+
+    private static final String SELECT_SQL = "SELECT id FROM users WHERE deleted_at IS NOT NULL AND deleted_at < ? ORDER BY id";
+    private static final String DELETE_ROLES_SQL = "DELETE FROM users_roles WHERE user_id = ?";
+    private static final String DELETE_USER_SQL = "DELETE FROM users WHERE id = ? AND deleted_at IS NOT NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long pauseMs;
+    private final long gracePeriodSeconds;
+    private final LongAdder purgedUsers = new LongAdder();
+
+    @Autowired
+    public UserPurger(PlatformTransactionManager transactionManager,
+            @Value("${app.users.purge.batch-size:500}") int batchSize,
+            @Value("${app.users.purge.max-batches:10}") int maxBatches,
+            @Value("${app.users.purge.pause-ms:100}") long pauseMs,
+            @Value("${app.users.purge.grace-period-seconds:60}") long gracePeriodSeconds) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pauseMs = pauseMs;
+        this.gracePeriodSeconds = gracePeriodSeconds;
+    }
+
+    /**
+     * Purga hasta {@code max-batches} lotes; lo que quede se purga en la siguiente ejecución.
+     *
+     * @return usuarios borrados físicamente en esta ejecución
+     */
+    @Scheduled(fixedDelayString = "${app.users.purge.interval-ms:30000}")
+    public int purge() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minusSeconds(gracePeriodSeconds));
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            if (batch > 0 && !pause()) {
+                break;
+            }
+            Integer purged = transactionTemplate.execute(status -> purgeBatch(cutoff));
+            total += purged;
+            if (purged < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            purgedUsers.add(total);
+            log.info("Purgados {} usuarios con borrado lógico", total);
+        }
+        return total;
+    }
+
+    private int purgeBatch(Timestamp cutoff) {
+        List<Long> ids = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_SQL);
+            ps.setTimestamp(1, cutoff);
+            ps.setMaxRows(batchSize);
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = ids.stream().map(id -> new Object[] { id }).toList();
+        jdbcTemplate.batchUpdate(DELETE_ROLES_SQL, args);
+        jdbcTemplate.batchUpdate(DELETE_USER_SQL, args);
+        return ids.size();
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Usuarios borrados físicamente desde el arranque. */
+    public long purgedUsers() {
+        return purgedUsers.sum();
+    }
+}
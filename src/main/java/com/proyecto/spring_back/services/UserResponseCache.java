@@ -0,0 +1,195 @@
+package com.proyecto.spring_back.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Caché de respuestas JSON ya codificadas para los listados públicos de usuarios.
+ *
+ * Guarda, por clave de listado, los bytes UTF-8 que produciría Jackson y su versión
+ * comprimida con gzip, de modo que servir una página caliente es copiar un buffer. Cada
+ * entrada lleva la versión de la instantánea de {@link UserDirectory} de la que salió:
+ * una entrada de otra versión no se sirve nunca, y al ver una versión nueva se
+ * descartan todas las anteriores.
+ *
+ * El ETag es un resumen SHA-256 de los bytes JSON, no la versión (que es local al
+ * proceso y vuelve a empezar en cada arranque): dos instancias, o la misma antes y
+ * después de reiniciar, dan el mismo ETag sólo si el contenido es idéntico.
+ *
+ * El tamaño está acotado por el total de bytes almacenados con expulsión LRU; las
+ * respuestas mayores que una fracción del total no se guardan.
+ */
+@Component
+@ConditionalOnProperty(name = "app.users.directory.enabled", havingValue = "true")
+public class UserResponseCache {
+
+    private record Entry(long version, String tag, byte[] json, byte[] gzip) {
+
+        long bytes() {
+            return json.length + gzip.length;
+        }
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private long latestVersion;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public UserResponseCache(@Value("${app.users.response-cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxBytes / 8;
+    }
+
+    /**
+     * Respuesta para un listado, desde la caché o serializando y guardando el cuerpo.
+     *
+     * @param key identificador del listado (ej: "page:0:count")
+     * @param version versión de la instantánea de la que sale el cuerpo
+     * @param body cuerpo a serializar si no está en caché
+     * @param acceptsGzip si el cliente admite Content-Encoding gzip
+     * @param ifNoneMatch valor de If-None-Match enviado por el cliente, o null
+     */
+    public ResponseEntity<byte[]> respond(String key, long version, Supplier<Object> body, boolean acceptsGzip,
+            String ifNoneMatch) {
+        Entry entry = lookup(key, version);
+        if (entry == null) {
+            misses.increment();
+            entry = encode(version, body.get());
+            store(key, entry);
+        } else {
+            hits.increment();
+        }
+
+        // Cada codificación es una representación distinta y lleva su propio ETag
+        String etag = "\"" + entry.tag() + (acceptsGzip ? "-gz" : "") + "\"";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setVary(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(entry.gzip(), headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(entry.json(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Indica si la respuesta negociada para esta cabecera Accept sería JSON. Sólo en ese
+     * caso se puede usar la caché; los formatos binarios siguen la negociación normal.
+     */
+    public static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            MediaType preferred = null;
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (preferred == null || type.getQualityValue() > preferred.getQualityValue()) {
+                    preferred = type;
+                }
+            }
+            return preferred == null || preferred.includes(MediaType.APPLICATION_JSON);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private synchronized Entry lookup(String key, long version) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.version() == version ? entry : null;
+    }
+
+    private synchronized void store(String key, Entry entry) {
+        if (entry.version() < latestVersion || entry.bytes() > maxEntryBytes) {
+            return;
+        }
+        if (entry.version() > latestVersion) {
+            // Versión nueva: ninguna entrada anterior vuelve a ser válida
+            entries.clear();
+            totalBytes = 0;
+            latestVersion = entry.version();
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.bytes();
+        }
+        totalBytes += entry.bytes();
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+        }
+    }
+
+    private Entry encode(long version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            return new Entry(version, contentTag(json), json, compressed.toByteArray());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el listado de usuarios", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Primeros 16 bytes del SHA-256 del JSON, en hexadecimal. */
+    private static String contentTag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Estado de la caché, para el endpoint de administración. */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("version", latestVersion);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+}
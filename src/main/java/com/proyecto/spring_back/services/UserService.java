@@ -2,13 +2,18 @@ package com.proyecto.spring_back.services;
 
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.models.PublicUser;
 import com.proyecto.spring_back.models.UserRequest;
 import com.proyecto.spring_back.models.UserSaveRequest;
 
@@ -17,9 +22,19 @@ public interface UserService {
 
     List<User> getAllUsers();
     Page<User> getAllUsers(Pageable pageable);
+    Slice<User> getUserSlice(Pageable pageable);
+    // Usuarios con un rol (ej: ROLE_ADMIN), siempre paginados; IllegalArgumentException si el rol no existe
+    Page<PublicUser> getUsersByRole(String role, Pageable pageable);
+    Slice<PublicUser> getUserSliceByRole(String role, Pageable pageable);
     Optional<User> getUserById(Long id);
+    List<User> getUsersByIds(Collection<Long> ids);
+    // Sólo los campos pedidos (ver UserFields), seleccionados en la propia consulta
+    Slice<Map<String, Object>> getUserFields(Pageable pageable, Set<String> fields);
+    Page<Map<String, Object>> getUserFieldsPage(Pageable pageable, Set<String> fields);
+    Optional<Map<String, Object>> getUserFieldsById(Long id, Set<String> fields);
     User createUser(UserSaveRequest userSaveRequest);
     Optional<User> updateUser(UserRequest userRequest, Long id);
-    void deleteById(Long id);
+    // true si este borrado lógico marcó la fila; false si no existía o ya estaba borrado
+    boolean deleteById(Long id);
 
 }
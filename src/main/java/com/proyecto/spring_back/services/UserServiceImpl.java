@@ -4,16 +4,29 @@ import org.springframework.stereotype.Service;
 
 import com.proyecto.spring_back.entities.User;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.events.UsersReplacedEvent;
 import com.proyecto.spring_back.models.IUser;
+import com.proyecto.spring_back.models.PublicUser;
 import com.proyecto.spring_back.repositories.RoleRepository;
 import com.proyecto.spring_back.repositories.UserRepository;
 import com.proyecto.spring_back.mapper.UserSaveRequestMapper;
@@ -21,6 +34,7 @@ import com.proyecto.spring_back.mapper.UserRequestMapper;
 
 import java.util.ArrayList;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import com.proyecto.spring_back.models.UserRequest;
 import com.proyecto.spring_back.models.UserSaveRequest;
 @Service
@@ -41,22 +55,110 @@ public class UserServiceImpl implements UserService{
     @Autowired
     private UserRequestMapper userRequestMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UserCountCache userCountCache;
+
+    // Lecturas concurrentes idénticas comparten una única consulta a la base de datos;
+    // cada seguidor recibe su propia copia de las entidades
+    private final SingleFlight<Long, Optional<User>> userByIdFlights =
+            new SingleFlight<>(1024, user -> user.map(UserServiceImpl::copyOf));
+    private final SingleFlight<Pageable, Slice<User>> sliceFlights =
+            new SingleFlight<>(256, slice -> slice.map(UserServiceImpl::copyOf));
+
     @Override
     @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return (List<User>) userRepository.findAll();
     }
 
+    // Sin @Transactional: los hilos que esperan a otra consulta no deben retener una
+    // conexión; la llamada al repositorio abre su propia transacción de sólo lectura
+    // El total sale de UserCountCache, no de un count(*) por página; en la última página
+    // PageableExecutionUtils lo deduce del contenido y ni siquiera consulta la caché
     @Override
-    @Transactional(readOnly = true)
     public Page<User> getAllUsers(Pageable pageable) {
-        return userRepository.findAll(pageable);
+        return toPage(getUserSlice(pageable), pageable);
+    }
+
+    private <T> Page<T> toPage(Slice<T> slice, Pageable pageable) {
+        long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return PageableExecutionUtils.getPage(slice.getContent(), pageable,
+                () -> Math.max(userCountCache.get(), seen));
+    }
+
+    @Override
+    public Slice<User> getUserSlice(Pageable pageable) {
+        return sliceFlights.execute(pageable, () -> userRepository.findAllBy(pageable));
+    }
+
+    // Dos consultas por página: los ids del rol por el índice y los usuarios con sus roles
+    // en un join fetch (sin una carga EAGER de roles por usuario)
+    @Override
+    @Transactional(readOnly = true)
+    public Page<PublicUser> getUsersByRole(String role, Pageable pageable) {
+        Page<Long> ids = userRepository.findIdPageByRoleId(roleId(role), pageable);
+        return new PageImpl<>(publicUsers(ids.getContent()), pageable, ids.getTotalElements());
     }
 
     @Override
     @Transactional(readOnly = true)
+    public Slice<PublicUser> getUserSliceByRole(String role, Pageable pageable) {
+        Slice<Long> ids = userRepository.findIdSliceByRoleId(roleId(role), pageable);
+        return new SliceImpl<>(publicUsers(ids.getContent()), pageable, ids.hasNext());
+    }
+
+    /** Vista pública de los usuarios indicados, en el mismo orden. */
+    private List<PublicUser> publicUsers(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> byId = new HashMap<>();
+        userRepository.findAllWithRolesByIdIn(ids).forEach(user -> byId.put(user.getId(), user));
+        List<PublicUser> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                users.add(PublicUser.of(user));
+            }
+        }
+        return users;
+    }
+
+    private Long roleId(String role) {
+        return roleRepository.findByName(role)
+                .map(Role::getId)
+                .orElseThrow(() -> new IllegalArgumentException("Rol desconocido: " + role));
+    }
+
+    @Override
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        return userByIdFlights.execute(id, () -> userRepository.findById(id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        return userRepository.findAllWithRolesByIdIn(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getUserFields(Pageable pageable, Set<String> fields) {
+        return userRepository.findFieldsBy(fields, pageable);
+    }
+
+    @Override
+    public Page<Map<String, Object>> getUserFieldsPage(Pageable pageable, Set<String> fields) {
+        return toPage(getUserFields(pageable, fields), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getUserFieldsById(Long id, Set<String> fields) {
+        return userRepository.findFieldsById(id, fields);
     }
 
     @Override
@@ -66,28 +168,81 @@ public class UserServiceImpl implements UserService{
         User user = userSaveRequestMapper.toUser(userSaveRequest);
         user.setRoles(roles);
         user.setPassword(passwordEncoder.encode(userSaveRequest.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED, saved));
+        return saved;
     }
 
     @Override
     @Transactional
     public Optional<User> updateUser(UserRequest userRequest, Long id) {
-        Optional<User> existingUser = getUserById(id);
+        // Lectura directa: la entidad debe pertenecer a esta transacción, no a una consulta compartida
+        Optional<User> existingUser = userRepository.findById(id);
         if (existingUser.isPresent()) {
             User userToUpdate = existingUser.get();
             // Actualización parcial con MapStruct (nulos ignorados, campos sensibles protegidos)
             userRequestMapper.updateUserFromRequest(userRequest, userToUpdate);
+            // Roles anteriores para quien mantiene recuentos por rol (UserStats)
+            List<String> previousRoles = userToUpdate.getRoles().stream().map(Role::getName).toList();
             List<Role> roles = setUserRoles(userRequest);
             userToUpdate.setRoles(roles);
-            return Optional.of(userRepository.save(userToUpdate));
+            User saved = userRepository.save(userToUpdate);
+            eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.UPDATED, saved, previousRoles));
+            return Optional.of(saved);
         }
         return Optional.empty();
     }
 
     @Override
     @Transactional
-    public void deleteById(Long id) {
-        userRepository.deleteById(id);
+    public boolean deleteById(Long id) {
+        // Borrado lógico: un UPDATE de coste constante; UserPurger borra después, por lotes,
+        // el usuario y sus filas de users_roles fuera de la petición. La única lectura
+        // conserva el estado (roles) para el evento; el resultado lo decide el UPDATE, de
+        // modo que un borrado concurrente que gane la carrera deja a este en false.
+        Optional<User> user = userRepository.findById(id);
+        if (user.isEmpty() || userRepository.softDeleteById(id, Instant.now()) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, user.get()));
+        return true;
+    }
+
+    /**
+     * Tras confirmar una escritura local ninguna lectura posterior se une a una consulta
+     * lanzada antes del commit. Se ejecuta en el hilo que escribe, antes de responder.
+     */
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        userByIdFlights.forget(event.userId());
+        sliceFlights.forgetAll();
+    }
+
+    @TransactionalEventListener
+    public void onUsersReplaced(UsersReplacedEvent event) {
+        userByIdFlights.forgetAll();
+        sliceFlights.forgetAll();
+    }
+
+    /** Copia independiente (también de los roles) para un seguidor de SingleFlight. */
+    static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setLastname(user.getLastname());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setAdmin(user.isAdmin());
+        copy.setLastLoginAt(user.getLastLoginAt());
+        copy.setLoginCount(user.getLoginCount());
+        copy.setDeletedAt(user.getDeletedAt());
+        List<Role> roles = new ArrayList<>();
+        if (user.getRoles() != null) {
+            user.getRoles().forEach(role -> roles.add(new Role(role.getId(), role.getName())));
+        }
+        copy.setRoles(roles);
+        return copy;
     }
 
     private List<Role> setUserRoles(IUser user) {
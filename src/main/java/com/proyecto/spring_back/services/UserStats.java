@@ -0,0 +1,177 @@
+package com.proyecto.spring_back.services;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.events.UsersReplacedEvent;
+
+/**
+ * Estadísticas de usuarios para {@code GET /api/users/stats}: total, usuarios por rol y
+ * administradores.
+ *
+ * El total es el de {@link UserCountCache}, el mismo que usan las páginas. Los
+ * contadores por rol (LongAdder, sin contención entre escritores) se inicializan con una
+ * consulta agregada al arrancar y se ajustan con cada alta, cambio de roles o baja
+ * confirmados en UserServiceImpl; leerlos no toca la base de datos. Una reconciliación
+ * periódica los sustituye por los valores de la base de datos y anota la deriva
+ * encontrada. Los cambios de otras instancias (UserChangeLog) sólo traen el id, así que
+ * provocan una reconciliación en el siguiente {@code remote-refresh-ms}.
+ */
+@Component
+public class UserStats {
+
+    private static final Logger log = LoggerFactory.getLogger(UserStats.class);
+
+    private static final String ADMIN_ROLE = "ROLE_ADMIN";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserCountCache userCountCache;
+
+    /** Usuarios por rol vigentes; la reconciliación publica un mapa nuevo. */
+    private volatile Map<String, LongAdder> counters;
+    private final Object reconcileLock = new Object();
+    private final AtomicBoolean remoteChanges = new AtomicBoolean();
+    private volatile Instant reconciledAt;
+    private volatile long lastDrift;
+    private final LongAdder incrementalUpdates = new LongAdder();
+
+    /**
+     * Vuelve a contar en la base de datos (sin los usuarios con borrado lógico). Un cambio
+     * confirmado mientras se cuenta puede quedar fuera o contarse dos veces hasta la
+     * siguiente reconciliación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.users.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.users.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            Map<String, LongAdder> roles = new ConcurrentHashMap<>();
+            // Left join para que los roles sin usuarios aparezcan con 0
+            jdbcTemplate.query("select r.name, count(u.id) from roles r left join users_roles ur on ur.role_id = r.id"
+                    + " left join users u on u.id = ur.user_id and u.deleted_at is null group by r.name", rs -> {
+                        LongAdder count = new LongAdder();
+                        count.add(rs.getLong(2));
+                        roles.put(rs.getString(1), count);
+                    });
+            Map<String, LongAdder> previous = counters;
+            if (previous != null) {
+                lastDrift = drift(previous, roles);
+                if (lastDrift > 0) {
+                    log.info("Estadísticas de usuarios reconciliadas: deriva de {}", lastDrift);
+                }
+            }
+            counters = roles;
+            reconciledAt = Instant.now();
+        }
+    }
+
+    private static long drift(Map<String, LongAdder> previous, Map<String, LongAdder> next) {
+        long drift = 0;
+        Set<String> names = new HashSet<>(previous.keySet());
+        names.addAll(next.keySet());
+        for (String name : names) {
+            LongAdder before = previous.get(name);
+            LongAdder after = next.get(name);
+            drift += Math.abs((before == null ? 0 : before.sum()) - (after == null ? 0 : after.sum()));
+        }
+        return drift;
+    }
+
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        Map<String, LongAdder> current = counters;
+        if (current == null) {
+            // Aún sin cargar: la primera reconciliación leerá el estado ya confirmado
+            return;
+        }
+        List<String> roles = roleNames(event.user());
+        switch (event.type()) {
+            case CREATED -> roles.forEach(name -> role(current, name).increment());
+            case UPDATED -> {
+                for (String name : event.previousRoles()) {
+                    if (!roles.contains(name)) {
+                        role(current, name).decrement();
+                    }
+                }
+                for (String name : roles) {
+                    if (!event.previousRoles().contains(name)) {
+                        role(current, name).increment();
+                    }
+                }
+            }
+            case DELETED -> roles.forEach(name -> role(current, name).decrement());
+        }
+        incrementalUpdates.increment();
+    }
+
+    private static LongAdder role(Map<String, LongAdder> counters, String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    private static List<String> roleNames(User user) {
+        return user.getRoles() == null ? List.of() : user.getRoles().stream().map(Role::getName).distinct().toList();
+    }
+
+    @TransactionalEventListener
+    public void onUsersReplaced(UsersReplacedEvent event) {
+        reconcile();
+    }
+
+    /** Cambio de otra instancia: sin sus roles no hay delta posible, se reconcilia después. */
+    @EventListener
+    public void onRemoteChange(RemoteUserChangeEvent event) {
+        remoteChanges.set(true);
+    }
+
+    /** Agrupa en una sola reconciliación todos los cambios remotos recibidos en el intervalo. */
+    @Scheduled(fixedDelayString = "${app.users.stats.remote-refresh-ms:5000}")
+    public void refreshAfterRemoteChanges() {
+        if (remoteChanges.getAndSet(false)) {
+            reconcile();
+        }
+    }
+
+    /** Total, usuarios por rol y administradores, desde memoria. */
+    public Map<String, Object> stats() {
+        Map<String, LongAdder> current = counters;
+        if (current == null) {
+            reconcile();
+            current = counters;
+        }
+        Map<String, Long> roles = new TreeMap<>();
+        current.forEach((name, count) -> roles.put(name, count.sum()));
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("total", userCountCache.get());
+        stats.put("admins", roles.getOrDefault(ADMIN_ROLE, 0L));
+        stats.put("roles", roles);
+        stats.put("reconciledAt", reconciledAt);
+        stats.put("lastDrift", lastDrift);
+        stats.put("incrementalUpdates", incrementalUpdates.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,76 @@
+package com.proyecto.spring_back.snapshot;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Diferencias entre bases de datos que afectan a la exportación y la restauración.
+ */
+enum SnapshotDialect {
+
+    MYSQL {
+        @Override
+        int fetchSize() {
+            // Con Connector/J sólo Integer.MIN_VALUE lee el resultado fila a fila
+            return Integer.MIN_VALUE;
+        }
+
+        @Override
+        void setForeignKeyChecks(JdbcTemplate jdbcTemplate, boolean enabled) {
+            // Variable de sesión: afecta sólo a esta conexión
+            jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS = " + (enabled ? 1 : 0));
+        }
+
+        @Override
+        void resetIdentity(JdbcTemplate jdbcTemplate, String table, long maxId) {
+            // InnoDB ya sube el contador con los ids explícitos
+        }
+    },
+
+    // SET REFERENTIAL_INTEGRITY hace commit de la transacción en curso: no se usa
+    H2 {
+        @Override
+        void resetIdentity(JdbcTemplate jdbcTemplate, String table, long maxId) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId + 1));
+        }
+    },
+
+    POSTGRESQL {
+        @Override
+        void resetIdentity(JdbcTemplate jdbcTemplate, String table, long maxId) {
+            if (maxId > 0) {
+                jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, 'id'), ?)", Long.class, table, maxId);
+            }
+        }
+    },
+
+    /** Sin optimizaciones: el orden de carga (roles, users, users_roles) ya respeta las FK. */
+    GENERIC;
+
+    static SnapshotDialect of(String databaseProductName) {
+        String name = databaseProductName == null ? "" : databaseProductName.toLowerCase();
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return MYSQL;
+        }
+        if (name.contains("h2")) {
+            return H2;
+        }
+        if (name.contains("postgres")) {
+            return POSTGRESQL;
+        }
+        return GENERIC;
+    }
+
+    int fetchSize() {
+        return 1000;
+    }
+
+    void setForeignKeyChecks(JdbcTemplate jdbcTemplate, boolean enabled) {
+    }
+
+    /**
+     * Ajusta el generador de ids de la tabla tras cargar ids explícitos. En H2 es DDL (con
+     * commit implícito), así que se llama fuera de la transacción de carga.
+     */
+    void resetIdentity(JdbcTemplate jdbcTemplate, String table, long maxId) {
+    }
+}
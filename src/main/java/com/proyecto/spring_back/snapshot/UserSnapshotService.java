@@ -0,0 +1,462 @@
+package com.proyecto.spring_back.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.proyecto.spring_back.events.UsersReplacedEvent;
+
+/**
+ * Instantáneas binarias de users, roles y users_roles, para sembrar entornos o
+ * recuperar un nodo sin reproducir volcados SQL ni miles de altas por la API.
+ *
+ * Formato (versión 1): cabecera sin comprimir de 14 bytes ({@code USNP}, versión,
+ * instante de creación) y después un flujo gzip con tres secciones en orden de
+ * dependencia (roles, users, users_roles). Cada fila va precedida de un byte 1 y cada
+ * sección termina con un 0; al final van los recuentos de filas y el CRC32 de todo el
+ * contenido sin comprimir. Los usuarios con borrado lógico no se exportan, y las
+ * contraseñas viajan ya cifradas: restaurar no pasa por BCrypt.
+ *
+ * La exportación lee en una transacción de sólo lectura REPEATABLE READ (las tres
+ * tablas del mismo instante) y escribe por un FileChannel a un fichero temporal que
+ * se renombra al terminar. La restauración sustituye el contenido en una sola
+ * transacción con inserciones por lotes y la comprobación de claves foráneas
+ * desactivada donde la base de datos lo permite; si los recuentos o el CRC no cuadran,
+ * se deshace entera. Tras el commit se publica {@link UsersReplacedEvent} para que las
+ * cachés en memoria se recarguen.
+ */
+@Component
+public class UserSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSnapshotService.class);
+
+    static final int MAGIC = 0x55534E50; // "USNP"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 4 + 2 + 8;
+
+    private static final byte ROW = 1;
+    private static final byte END_OF_SECTION = 0;
+    private static final int STREAM_BUFFER = 64 * 1024;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,99}");
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private static final String SELECT_ROLES = "select id, name from roles order by id";
+    private static final String SELECT_USERS = "select id, name, lastname, username, email, password, last_login_at,"
+            + " login_count from users where deleted_at is null order by id";
+    private static final String SELECT_USER_ROLES = "select ur.user_id, ur.role_id from users_roles ur"
+            + " join users u on u.id = ur.user_id where u.deleted_at is null order by ur.user_id, ur.role_id";
+    private static final String INSERT_ROLE = "insert into roles (id, name) values (?, ?)";
+    private static final String INSERT_USER = "insert into users (id, name, lastname, username, email, password,"
+            + " last_login_at, login_count) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE = "insert into users_roles (user_id, role_id) values (?, ?)";
+
+    /** Resultado de una exportación o restauración. */
+    public record Summary(String name, long roles, long users, long userRoles, long bytes, long millis,
+            long rowsPerSecond) {
+
+        static Summary of(String name, long roles, long users, long userRoles, long bytes, long nanos) {
+            long rows = roles + users + userRoles;
+            long millis = nanos / 1_000_000;
+            return new Summary(name, roles, users, userRoles, bytes, millis,
+                    nanos == 0 ? rows : rows * 1_000_000_000L / nanos);
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final PlatformTransactionManager transactionManager;
+    private final Path directory;
+    private final int batchSize;
+    private volatile SnapshotDialect dialect;
+
+    @Autowired
+    public UserSnapshotService(PlatformTransactionManager transactionManager,
+            @Value("${app.snapshot.directory:snapshots}") String directory,
+            @Value("${app.snapshot.batch-size:1000}") int batchSize) {
+        this.transactionManager = transactionManager;
+        this.directory = Path.of(directory);
+        this.batchSize = batchSize;
+    }
+
+    private SnapshotDialect dialect() {
+        SnapshotDialect current = dialect;
+        if (current == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                current = SnapshotDialect.of(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                current = SnapshotDialect.GENERIC;
+            }
+            dialect = current;
+        }
+        return current;
+    }
+
+    /**
+     * Ruta de una instantánea del directorio configurado.
+     *
+     * @throws IllegalArgumentException si el nombre no es válido (letras, dígitos, '.', '_', '-')
+     */
+    public Path resolve(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Nombre de instantánea no válido: " + name);
+        }
+        return directory.resolve(name);
+    }
+
+    /** Instantáneas disponibles, de la más reciente a la más antigua. */
+    public List<Map<String, Object>> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(UserSnapshotService::isSnapshotFile).toList()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("name", file.getFileName().toString());
+                entry.put("bytes", Files.size(file));
+                try {
+                    entry.put("createdAt", readHeader(file));
+                } catch (IllegalArgumentException e) {
+                    entry.put("error", e.getMessage());
+                }
+                result.add(entry);
+            }
+        }
+        result.sort((a, b) -> String.valueOf(b.get("createdAt")).compareTo(String.valueOf(a.get("createdAt"))));
+        return result;
+    }
+
+    private static boolean isSnapshotFile(Path file) {
+        String name = file.getFileName().toString();
+        return NAME.matcher(name).matches() && !name.endsWith(".tmp");
+    }
+
+    // ---------------------------------------------------------------- exportación
+
+    public Summary export(String name) throws IOException {
+        Path target = resolve(name);
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(name + ".tmp");
+        long start = System.nanoTime();
+        long[] counts;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putShort(VERSION).putLong(System.currentTimeMillis()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Channels.newOutputStream(channel), STREAM_BUFFER), STREAM_BUFFER), crc));
+            counts = readOnlyTransaction().execute(status -> writeSections(out));
+            out.writeLong(counts[0]);
+            out.writeLong(counts[1]);
+            out.writeLong(counts[2]);
+            long checksum = crc.getValue();
+            out.writeLong(checksum);
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Summary summary = Summary.of(name, counts[0], counts[1], counts[2], Files.size(target), System.nanoTime() - start);
+        log.info("Instantánea exportada: {}", summary);
+        return summary;
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return template;
+    }
+
+    private long[] writeSections(DataOutputStream out) {
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(dialect().fetchSize());
+        long[] counts = new long[3];
+        counts[0] = writeSection(streaming, SELECT_ROLES, out, rs -> {
+            out.writeLong(rs.getLong(1));
+            out.writeUTF(rs.getString(2));
+        });
+        counts[1] = writeSection(streaming, SELECT_USERS, out, rs -> {
+            out.writeLong(rs.getLong(1));
+            writeString(out, rs.getString(2));
+            writeString(out, rs.getString(3));
+            writeString(out, rs.getString(4));
+            writeString(out, rs.getString(5));
+            writeString(out, rs.getString(6));
+            Timestamp lastLogin = rs.getTimestamp(7);
+            out.writeLong(lastLogin == null ? NULL_LONG : lastLogin.getTime());
+            long loginCount = rs.getLong(8);
+            out.writeLong(rs.wasNull() ? NULL_LONG : loginCount);
+        });
+        counts[2] = writeSection(streaming, SELECT_USER_ROLES, out, rs -> {
+            out.writeLong(rs.getLong(1));
+            out.writeLong(rs.getLong(2));
+        });
+        return counts;
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private static long writeSection(JdbcTemplate template, String sql, DataOutputStream out, RowWriter writer) {
+        long[] rows = new long[1];
+        template.query(sql, (RowCallbackHandler) rs -> {
+            try {
+                out.writeByte(ROW);
+                writer.write(rs);
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        try {
+            out.writeByte(END_OF_SECTION);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows[0];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    // -------------------------------------------------------------- restauración
+
+    /**
+     * Sustituye users, roles y users_roles por el contenido de la instantánea.
+     *
+     * @throws NoSuchFileException si no existe
+     * @throws IllegalArgumentException si el fichero no es una instantánea válida de esta versión
+     */
+    public Summary restore(String name) throws IOException {
+        Path source = resolve(name);
+        long start = System.nanoTime();
+        long[] result;
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            readHeader(channel);
+            CRC32 crc = new CRC32();
+            DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(
+                    new GZIPInputStream(Channels.newInputStream(channel), STREAM_BUFFER), STREAM_BUFFER), crc));
+            result = new TransactionTemplate(transactionManager).execute(status -> load(name, in, crc));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (EOFException e) {
+            // Cabecera gzip incompleta
+            throw new IllegalArgumentException("Instantánea truncada", e);
+        } catch (ZipException e) {
+            throw new IllegalArgumentException("Instantánea corrupta: " + e.getMessage(), e);
+        }
+        // Fuera de la transacción: en H2 es DDL y haría commit implícito
+        dialect().resetIdentity(jdbcTemplate, "roles", result[3]);
+        dialect().resetIdentity(jdbcTemplate, "users", result[4]);
+        Summary summary = Summary.of(name, result[0], result[1], result[2], Files.size(source), System.nanoTime() - start);
+        log.info("Instantánea restaurada: {}", summary);
+        return summary;
+    }
+
+    private long[] load(String name, DataInputStream in, CRC32 crc) {
+        SnapshotDialect dialect = dialect();
+        dialect.setForeignKeyChecks(jdbcTemplate, false);
+        try {
+            jdbcTemplate.update("delete from users_roles");
+            jdbcTemplate.update("delete from users");
+            jdbcTemplate.update("delete from roles");
+
+            long[] maxRoleId = new long[1];
+            long roles = loadSection(in, INSERT_ROLE, 2, row -> {
+                long id = in.readLong();
+                maxRoleId[0] = Math.max(maxRoleId[0], id);
+                row[0] = id;
+                row[1] = in.readUTF();
+            });
+            long[] maxUserId = new long[1];
+            long users = loadSection(in, INSERT_USER, 8, row -> {
+                long id = in.readLong();
+                maxUserId[0] = Math.max(maxUserId[0], id);
+                row[0] = id;
+                for (int i = 1; i <= 5; i++) {
+                    row[i] = readString(in);
+                }
+                long lastLogin = in.readLong();
+                row[6] = lastLogin == NULL_LONG ? null : new Timestamp(lastLogin);
+                long loginCount = in.readLong();
+                row[7] = loginCount == NULL_LONG ? null : loginCount;
+            });
+            long userRoles = loadSection(in, INSERT_USER_ROLE, 2, row -> {
+                row[0] = in.readLong();
+                row[1] = in.readLong();
+            });
+
+            if (in.readLong() != roles || in.readLong() != users || in.readLong() != userRoles) {
+                throw new IllegalArgumentException("Instantánea corrupta: los recuentos no coinciden");
+            }
+            // El CRC cubre todo lo anterior, recuentos incluidos
+            long checksum = crc.getValue();
+            if (in.readLong() != checksum) {
+                throw new IllegalArgumentException("Instantánea corrupta: el CRC32 no coincide");
+            }
+            eventPublisher.publishEvent(new UsersReplacedEvent(name, users));
+            return new long[] { roles, users, userRoles, maxRoleId[0], maxUserId[0] };
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Instantánea truncada", e);
+        } catch (ZipException | UTFDataFormatException e) {
+            // Flujo deflate dañado o cadena que no es UTF-8 modificado
+            throw new IllegalArgumentException("Instantánea corrupta: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            dialect.setForeignKeyChecks(jdbcTemplate, true);
+        }
+    }
+
+    private interface RowReader {
+        void read(Object[] row) throws IOException;
+    }
+
+    private long loadSection(DataInputStream in, String sql, int columns, RowReader reader) throws IOException {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long rows = 0;
+        while (true) {
+            byte marker = in.readByte();
+            if (marker == END_OF_SECTION) {
+                break;
+            }
+            if (marker != ROW) {
+                throw new IllegalArgumentException("Instantánea corrupta: marcador " + marker);
+            }
+            Object[] row = new Object[columns];
+            reader.read(row);
+            batch.add(row);
+            rows++;
+            if (batch.size() == batchSize) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+        return rows;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // ------------------------------------------------------------------ ficheros
+
+    /**
+     * Guarda una instantánea recibida (por ejemplo, descargada de otro nodo). Se escribe
+     * a un temporal y sólo se publica si la cabecera es válida.
+     *
+     * @return bytes escritos
+     */
+    public long store(String name, InputStream body) throws IOException {
+        Path target = resolve(name);
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(name + ".tmp");
+        long bytes = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING); ReadableByteChannel input = Channels.newChannel(body)) {
+                long transferred;
+                while ((transferred = channel.transferFrom(input, bytes, STREAM_BUFFER)) > 0) {
+                    bytes += transferred;
+                }
+            }
+            readHeader(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return bytes;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Instant readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    private static Instant readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // lee la cabecera completa
+        }
+        if (header.hasRemaining()) {
+            throw new IllegalArgumentException("No es una instantánea de usuarios: fichero demasiado corto");
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IllegalArgumentException("No es una instantánea de usuarios");
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Versión de instantánea no soportada: " + version);
+        }
+        return Instant.ofEpochMilli(header.getLong());
+    }
+}
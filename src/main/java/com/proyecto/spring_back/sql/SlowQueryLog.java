@@ -0,0 +1,163 @@
+package com.proyecto.spring_back.sql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tiempos de las sentencias SQL agregados por huella ({@link SqlFingerprint}).
+ *
+ * {@link TimedDataSource} llama a {@link #record} tras cada ejecución. Por huella se
+ * acumulan ejecuciones, errores, tiempo total y máximo con contadores sin bloqueo; sólo
+ * se escribe en el log (con pares clave-valor, que el logging estructurado de Spring
+ * Boot emite como campos) si la sentencia supera el umbral o cae en la muestra.
+ *
+ * El número de huellas está acotado: una vez lleno, las nuevas se acumulan en
+ * {@link #OVERFLOW}. La huella de cada texto SQL se guarda también en una caché acotada,
+ * porque las sentencias preparadas se repiten con el mismo texto.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    /** Huella bajo la que se acumulan las sentencias una vez alcanzado el máximo */
+    public static final String OVERFLOW = "(otras)";
+
+    private static final int MAX_SQL_LENGTH = 1000;
+
+    /** Agregado de una huella. */
+    static final class Stats {
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        // Primer texto visto, como ejemplo legible de la huella
+        final String example;
+
+        Stats(String example) {
+            this.example = example;
+        }
+    }
+
+    /** Vista de una huella para el endpoint de administración. */
+    public record FingerprintStats(String fingerprint, long count, long errors, double totalMs, double avgMs,
+            double maxMs, String example) {
+    }
+
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxFingerprints;
+
+    @Autowired
+    public SlowQueryLog(@Value("${app.sql.slow-log.threshold-ms:200}") long thresholdMs,
+            @Value("${app.sql.slow-log.sample-rate:0.001}") double sampleRate,
+            @Value("${app.sql.slow-log.max-fingerprints:1000}") int maxFingerprints) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.sampleRate = sampleRate;
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * Registra una ejecución.
+     *
+     * @param sql texto de la sentencia
+     * @param nanos duración de la ejecución
+     * @param failed si la ejecución lanzó una excepción
+     */
+    public void record(String sql, long nanos, boolean failed) {
+        String fingerprint = fingerprint(sql);
+        Stats entry = stats.get(fingerprint);
+        if (entry == null) {
+            String key = stats.size() < maxFingerprints ? fingerprint : OVERFLOW;
+            entry = stats.computeIfAbsent(key, k -> new Stats(truncate(sql)));
+        }
+        entry.count.increment();
+        entry.totalNanos.add(nanos);
+        entry.maxNanos.accumulateAndGet(nanos, Math::max);
+        if (failed) {
+            entry.errors.increment();
+        }
+
+        boolean slow = nanos >= thresholdNanos;
+        if (slow || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            log.atLevel(slow ? Level.WARN : Level.INFO)
+                    .addKeyValue("sql.fingerprint", fingerprint)
+                    .addKeyValue("sql.durationMs", nanos / 1_000_000.0)
+                    .addKeyValue("sql.slow", slow)
+                    .addKeyValue("sql.failed", failed)
+                    .addKeyValue("sql.text", truncate(sql))
+                    .log(slow ? "Consulta SQL lenta" : "Consulta SQL (muestra)");
+        }
+    }
+
+    private String fingerprint(String sql) {
+        String cached = fingerprints.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String fingerprint = SqlFingerprint.of(sql);
+        if (fingerprints.size() < maxFingerprints * 4) {
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static String truncate(String sql) {
+        return sql.length() <= MAX_SQL_LENGTH ? sql : sql.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
+    /**
+     * Las {@code limit} huellas con mayor valor del criterio indicado.
+     *
+     * @param sort "total" (tiempo acumulado), "max", "avg" o "count"
+     */
+    public List<FingerprintStats> top(int limit, String sort) {
+        Comparator<FingerprintStats> order = switch (sort) {
+            case "max" -> Comparator.comparingDouble(FingerprintStats::maxMs);
+            case "avg" -> Comparator.comparingDouble(FingerprintStats::avgMs);
+            case "count" -> Comparator.comparingLong(FingerprintStats::count);
+            default -> Comparator.comparingDouble(FingerprintStats::totalMs);
+        };
+        List<FingerprintStats> all = new ArrayList<>(stats.size());
+        stats.forEach((fingerprint, entry) -> {
+            long count = entry.count.sum();
+            double totalMs = entry.totalNanos.sum() / 1_000_000.0;
+            all.add(new FingerprintStats(fingerprint, count, entry.errors.sum(), totalMs,
+                    count == 0 ? 0 : totalMs / count, entry.maxNanos.get() / 1_000_000.0, entry.example));
+        });
+        all.sort(order.reversed());
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    /** Resumen global, para el endpoint de administración. */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("fingerprints", stats.size());
+        summary.put("maxFingerprints", maxFingerprints);
+        summary.put("thresholdMs", TimeUnit.NANOSECONDS.toMillis(thresholdNanos));
+        summary.put("sampleRate", sampleRate);
+        return summary;
+    }
+
+    /** Vacía los agregados (por ejemplo, antes de medir una prueba de carga). */
+    public void reset() {
+        stats.clear();
+    }
+}
@@ -0,0 +1,35 @@
+package com.proyecto.spring_back.sql;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Envuelve el DataSource de la aplicación con {@link TimedDataSource} cuando
+ * {@code app.sql.slow-log.enabled=true}.
+ */
+@Configuration
+public class SqlConfig {
+
+    /**
+     * Estático para registrarse antes que el resto de beans; SlowQueryLog se resuelve al
+     * envolver el DataSource, no al crear el post-procesador.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.sql.slow-log.enabled", havingValue = "true")
+    static BeanPostProcessor timedDataSourcePostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TimedDataSource)) {
+                    return new TimedDataSource(dataSource, slowQueryLog.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
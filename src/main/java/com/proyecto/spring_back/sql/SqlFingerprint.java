@@ -0,0 +1,79 @@
+package com.proyecto.spring_back.sql;
+
+import java.util.regex.Pattern;
+
+/**
+ * Huella de una sentencia SQL: la misma consulta con otros valores produce la misma huella.
+ *
+ * Sustituye literales de texto y números por {@code ?}, elimina comentarios, pasa a
+ * minúsculas, colapsa los espacios y reduce las listas {@code in (?, ?, ...)} a
+ * {@code in (?+)}, de modo que un IN con 1, 3 o 50 valores cuentan como la misma consulta.
+ * Sólo se reducen las listas de un IN: {@code lower(?)} conserva su forma.
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // Literal de texto, con '' como comilla escapada
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                appendSpace(out);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                appendSpace(out);
+            } else if (Character.isDigit(c) && !partOfIdentifier(out)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (Character.isWhitespace(c)) {
+                i++;
+                appendSpace(out);
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return IN_LIST.matcher(out.toString().trim()).replaceAll("in (?+)");
+    }
+
+    private static boolean partOfIdentifier(StringBuilder out) {
+        if (out.isEmpty()) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+
+    private static void appendSpace(StringBuilder out) {
+        if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ') {
+            out.append(' ');
+        }
+    }
+}
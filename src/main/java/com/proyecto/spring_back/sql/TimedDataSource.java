@@ -0,0 +1,154 @@
+package com.proyecto.spring_back.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource que mide cada ejecución de sentencia y la registra en {@link SlowQueryLog}.
+ *
+ * Envuelve las conexiones y sentencias del pool con proxies dinámicos: el texto SQL se
+ * toma al preparar la sentencia (o del argumento de {@code execute*} en las sentencias
+ * simples) y sólo se miden los métodos {@code execute*}. Al heredar de
+ * DelegatingDataSource, Spring Boot sigue encontrando el pool de Hikari debajo para sus
+ * métricas.
+ */
+public class TimedDataSource extends DelegatingDataSource {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public TimedDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            Object result = TimedDataSource.invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(TimedDataSource.class.getClassLoader(), new Class<?>[] { type },
+                        new StatementHandler(statement, (Connection) proxy, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final Connection connection;
+        private final String preparedSql;
+        // Primera sentencia añadida con addBatch(String) a una sentencia simple
+        private String batchSql;
+
+        StatementHandler(Statement target, Connection connection, String preparedSql) {
+            this.target = target;
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return connection;
+                case "addBatch":
+                    if (batchSql == null && args != null && args.length == 1) {
+                        batchSql = (String) args[0];
+                    }
+                    break;
+                case "clearBatch":
+                    batchSql = null;
+                    break;
+                default:
+                    break;
+            }
+            if (!name.startsWith("execute")) {
+                return TimedDataSource.invoke(target, method, args);
+            }
+
+            String sql = preparedSql;
+            if (args != null && args.length > 0 && args[0] instanceof String text) {
+                sql = text;
+            } else if (sql == null) {
+                sql = batchSql;
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = TimedDataSource.invoke(target, method, args);
+                failed = false;
+                return result;
+            } finally {
+                if (name.equals("executeBatch")) {
+                    batchSql = null;
+                }
+                if (sql != null) {
+                    slowQueryLog.record(sql, System.nanoTime() - start, failed);
+                }
+            }
+        }
+    }
+}
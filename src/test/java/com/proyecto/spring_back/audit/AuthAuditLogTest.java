@@ -0,0 +1,158 @@
+package com.proyecto.spring_back.audit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthAuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Al cerrar se vacía la cola y los eventos se pueden consultar en orden")
+    void closeDrainsQueueAndEventsAreQueryable() throws Exception {
+        AuthAuditLog log = new AuthAuditLog(directory.toString(), 4096, 10, 1000, 1000);
+        log.start();
+        for (int i = 0; i < 50; i++) {
+            log.recordFailure("user" + (i % 5), "10.0.0." + i, "Bad credentials");
+        }
+        log.recordSuccess("admin", "127.0.0.1");
+        log.close();
+
+        assertThat(log.getWrittenCount()).isEqualTo(51);
+        List<AuthAuditEvent> failures = AuthAuditReader.query(directory,
+                AuthAuditReader.filter("user1", AuthAuditEvent.Outcome.FAILURE, null, null), 100);
+        assertThat(failures).hasSize(10).extracting(AuthAuditEvent::ip)
+                .containsExactly("10.0.0.1", "10.0.0.6", "10.0.0.11", "10.0.0.16", "10.0.0.21",
+                        "10.0.0.26", "10.0.0.31", "10.0.0.36", "10.0.0.41", "10.0.0.46");
+
+        List<AuthAuditEvent> last = AuthAuditReader.query(directory, event -> true, 1);
+        assertThat(last).singleElement().satisfies(event -> {
+            assertThat(event.outcome()).isEqualTo(AuthAuditEvent.Outcome.SUCCESS);
+            assertThat(event.username()).isEqualTo("admin");
+        });
+    }
+
+    @Test
+    @DisplayName("Los segmentos rotan al llenarse y se conservan como máximo los configurados")
+    void segmentsRollAndOldOnesAreDeleted() throws Exception {
+        AuthAuditLog log = new AuthAuditLog(directory.toString(), 512, 3, 10_000, 1000);
+        log.start();
+        for (int i = 0; i < 200; i++) {
+            log.recordSuccess("user" + i, "127.0.0.1");
+        }
+        log.close();
+
+        List<Path> segments = AuthAuditReader.listSegments(directory);
+        assertThat(segments).hasSize(3);
+        List<AuthAuditEvent> kept = AuthAuditReader.query(directory, event -> true, 1000);
+        assertThat(kept).isNotEmpty().last().extracting(AuthAuditEvent::username).isEqualTo("user199");
+    }
+
+    @Test
+    @DisplayName("Un segmento borrado por la rotación durante la consulta se omite")
+    void segmentDeletedDuringScanIsSkipped() throws Exception {
+        AuthAuditLog log = new AuthAuditLog(directory.toString(), 512, 10, 10_000, 1000);
+        log.start();
+        for (int i = 0; i < 20; i++) {
+            log.recordSuccess("user" + i, "127.0.0.1");
+        }
+        log.close();
+
+        List<Path> segments = AuthAuditReader.listSegments(directory);
+        assertThat(segments).hasSizeGreaterThan(1);
+        Files.delete(segments.get(0));
+
+        List<AuthAuditEvent> kept = AuthAuditReader.query(segments, event -> true, 1000);
+        assertThat(kept).isNotEmpty().last().extracting(AuthAuditEvent::username).isEqualTo("user19");
+    }
+
+    @Test
+    @DisplayName("Un registro reabierto continúa tras el último evento escrito")
+    void reopenedLogAppendsAfterExistingEvents() throws Exception {
+        AuthAuditLog first = new AuthAuditLog(directory.toString(), 4096, 10, 1000, 1000);
+        first.start();
+        first.recordSuccess("antes", "127.0.0.1");
+        first.close();
+
+        AuthAuditLog second = new AuthAuditLog(directory.toString(), 4096, 10, 1000, 1000);
+        second.start();
+        second.recordSuccess("despues", "127.0.0.1");
+        second.close();
+
+        assertThat(AuthAuditReader.query(directory, event -> true, 10))
+                .extracting(AuthAuditEvent::username).containsExactly("antes", "despues");
+    }
+
+    @Test
+    @DisplayName("Con la cola llena los eventos se descartan sin bloquear")
+    void fullQueueDropsEvents() {
+        AuthAuditLog log = new AuthAuditLog(directory.toString(), 4096, 10, 2, 1000);
+        // Sin arrancar el escritor nadie vacía la cola
+        assertThat(log.record(new AuthAuditEvent(1, AuthAuditEvent.Outcome.SUCCESS, "a", "ip", null))).isTrue();
+        assertThat(log.record(new AuthAuditEvent(2, AuthAuditEvent.Outcome.SUCCESS, "b", "ip", null))).isTrue();
+        assertThat(log.record(new AuthAuditEvent(3, AuthAuditEvent.Outcome.SUCCESS, "c", "ip", null))).isFalse();
+        assertThat(log.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El escritor aparcado despierta con cada evento, sin esperar al cierre")
+    void idleWriterWakesOnRecord() throws Exception {
+        AuthAuditLog log = new AuthAuditLog(directory.toString(), 4096, 10, 1000, 1000);
+        log.start();
+        try {
+            Thread.sleep(50);
+            log.recordSuccess("ana", "127.0.0.1");
+            assertThat(waitFor(() -> log.getWrittenCount() == 1)).isTrue();
+        } finally {
+            log.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Si el escritor muere, record descarta sin encolar y la salud pasa a DOWN")
+    void deadWriterFailsFastAndReportsDown() throws Exception {
+        Path segments = directory.resolve("segments");
+        AuthAuditLog log = new AuthAuditLog(segments.toString(), 256, 10, 1000, 1000);
+        log.start();
+        assertThat(log.health().getStatus()).isEqualTo(Status.UP);
+        // Un fichero en lugar del directorio: abrir el siguiente segmento falla
+        for (Path segment : AuthAuditReader.listSegments(segments)) {
+            Files.delete(segment);
+        }
+        Files.delete(segments);
+        Files.writeString(segments, "");
+        for (int i = 0; i < 20; i++) {
+            log.recordSuccess("user" + i, "127.0.0.1");
+        }
+        assertThat(waitFor(() -> log.health().getStatus().equals(Status.DOWN) && log.getPendingCount() == 0)).isTrue();
+
+        long dropped = log.getDroppedCount();
+        assertThat(log.record(new AuthAuditEvent(0, AuthAuditEvent.Outcome.SUCCESS, "tarde", "127.0.0.1", null)))
+                .isFalse();
+        assertThat(log.getDroppedCount()).isEqualTo(dropped + 1);
+        assertThat(log.getPendingCount()).isZero();
+        log.close();
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package com.proyecto.spring_back.auth.lockout;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginAttemptTrackerTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private LoginAttemptTracker buildTracker() {
+        long window = TimeUnit.SECONDS.toNanos(60);
+        return new LoginAttemptTracker(true,
+                new LoginAttemptTracker.Policy(3, window),
+                new LoginAttemptTracker.Policy(10, window),
+                TimeUnit.SECONDS.toNanos(10), TimeUnit.SECONDS.toNanos(35),
+                TimeUnit.MINUTES.toNanos(30), 1000, now::get);
+    }
+
+    private void advance(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    @DisplayName("Bloquea al usuario al alcanzar el umbral de fallos en la ventana")
+    void locksUsernameAfterThreshold() {
+        LoginAttemptTracker tracker = buildTracker();
+        tracker.recordFailure("admin", "1.1.1.1");
+        tracker.recordFailure("Admin", "1.1.1.2");
+        assertThat(tracker.lockRemaining("admin", "9.9.9.9")).isZero();
+
+        tracker.recordFailure("admin", "1.1.1.3");
+        assertThat(tracker.lockRemaining("admin", "9.9.9.9")).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+        assertThat(tracker.lockRemaining("otro", "1.1.1.1")).isZero();
+    }
+
+    @Test
+    @DisplayName("Cada bloqueo sucesivo dura el doble, hasta el máximo")
+    void lockDurationBacksOffProgressively() {
+        LoginAttemptTracker tracker = buildTracker();
+        long[] expected = {10, 20, 35, 35};
+        for (long seconds : expected) {
+            for (int i = 0; i < 3; i++) {
+                tracker.recordFailure("admin", null);
+            }
+            assertThat(tracker.lockRemaining("admin", null)).isEqualTo(TimeUnit.SECONDS.toNanos(seconds));
+            advance(seconds);
+            assertThat(tracker.lockRemaining("admin", null)).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Los fallos antiguos salen de la ventana deslizante")
+    void failuresDecayOutOfWindow() {
+        LoginAttemptTracker tracker = buildTracker();
+        tracker.recordFailure("admin", null);
+        tracker.recordFailure("admin", null);
+        advance(120);
+        tracker.recordFailure("admin", null);
+        assertThat(tracker.lockRemaining("admin", null)).isZero();
+    }
+
+    @Test
+    @DisplayName("Bloquea la IP que prueba muchos usuarios distintos")
+    void locksIpAcrossUsernames() {
+        LoginAttemptTracker tracker = buildTracker();
+        for (int i = 0; i < 10; i++) {
+            tracker.recordFailure("user" + i, "6.6.6.6");
+        }
+        assertThat(tracker.lockRemaining("nuevo", "6.6.6.6")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Un login correcto limpia el usuario pero no la IP")
+    void successClearsUsernameOnly() {
+        LoginAttemptTracker tracker = buildTracker();
+        tracker.recordFailure("admin", "1.1.1.1");
+        tracker.recordFailure("admin", "1.1.1.1");
+        tracker.recordSuccess("admin");
+        tracker.recordFailure("admin", "1.1.1.1");
+        assertThat(tracker.lockRemaining("admin", null)).isZero();
+        assertThat(tracker.snapshot(10)).anySatisfy(state -> {
+            assertThat(state.type()).isEqualTo(LoginAttemptTracker.KeyType.IP);
+            assertThat(state.failures()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    @DisplayName("Elimina las claves inactivas y sin bloqueo")
+    void evictsIdleEntries() {
+        LoginAttemptTracker tracker = buildTracker();
+        tracker.recordFailure("admin", "1.1.1.1");
+        assertThat(tracker.size()).isEqualTo(2);
+        advance(120);
+        tracker.evictIdle();
+        assertThat(tracker.size()).isZero();
+    }
+}
@@ -0,0 +1,77 @@
+package com.proyecto.spring_back.auth.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private RateLimiter buildLimiter() {
+        return new RateLimiter(true, Map.of(
+                RateLimiter.Category.LOGIN, new RateLimitPolicy(1, 3),
+                RateLimiter.Category.READ, new RateLimitPolicy(100, 10),
+                RateLimiter.Category.WRITE, new RateLimitPolicy(10, 5)), now::get);
+    }
+
+    @Test
+    @DisplayName("Permite la ráfaga configurada y después rechaza con tiempo de espera")
+    void allowsBurstThenRejects() {
+        RateLimiter limiter = buildLimiter();
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:1.1.1.1")).isZero();
+        }
+        long wait = limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:1.1.1.1");
+        assertThat(wait).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    @DisplayName("Repone tokens con el paso del tiempo")
+    void refillsOverTime() {
+        RateLimiter limiter = buildLimiter();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:1.1.1.1");
+        }
+        assertThat(limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:1.1.1.1")).isPositive();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:1.1.1.1")).isZero();
+    }
+
+    @Test
+    @DisplayName("Los buckets son independientes por clave y por categoría")
+    void bucketsAreIndependent() {
+        RateLimiter limiter = buildLimiter();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:1.1.1.1");
+        }
+        assertThat(limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:1.1.1.1")).isPositive();
+        assertThat(limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:2.2.2.2")).isZero();
+        assertThat(limiter.tryAcquire(RateLimiter.Category.READ, "ip:1.1.1.1")).isZero();
+    }
+
+    @Test
+    @DisplayName("evictIdle elimina sólo los buckets que ya están llenos")
+    void evictsIdleBuckets() {
+        RateLimiter limiter = buildLimiter();
+        limiter.tryAcquire(RateLimiter.Category.WRITE, "user:idle");
+        limiter.tryAcquire(RateLimiter.Category.LOGIN, "ip:busy");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.evictIdle();
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Categoriza login, lecturas y escrituras")
+    void categorizesRequests() {
+        assertThat(RateLimiter.categorize("POST", "/login")).isEqualTo(RateLimiter.Category.LOGIN);
+        assertThat(RateLimiter.categorize("GET", "/api/users")).isEqualTo(RateLimiter.Category.READ);
+        assertThat(RateLimiter.categorize("DELETE", "/api/users/1")).isEqualTo(RateLimiter.Category.WRITE);
+        assertThat(RateLimiter.categorize("POST", "/api/users/lookup")).isEqualTo(RateLimiter.Category.READ);
+    }
+}
@@ -0,0 +1,37 @@
+package com.proyecto.spring_back.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupReportTest {
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Atribuye a cada bean sólo su tiempo propio, sin el de sus dependencias")
+    void attributesSelfTimeToBeans() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+        StartupStep outer = startup.start("spring.beans.instantiate").tag("beanName", "userController");
+        sleep(20);
+        StartupStep inner = startup.start("spring.beans.instantiate").tag("beanName", "userDirectory");
+        sleep(120);
+        inner.end();
+        outer.end();
+
+        StartupReport.Summary summary = StartupReport.summarize(startup.getBufferedTimeline().getEvents(), 10);
+
+        assertThat(summary.beans().keySet()).containsExactly("userDirectory", "userController");
+        assertThat(summary.beans().get("userController")).isLessThan(100);
+        assertThat(summary.phases()).containsOnlyKeys("spring.beans.instantiate");
+    }
+}
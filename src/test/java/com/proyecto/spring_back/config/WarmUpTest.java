@@ -0,0 +1,36 @@
+package com.proyecto.spring_back.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.warmup.enabled=true", "app.warmup.iterations=5", "app.warmup.http-requests=1" })
+@ActiveProfiles("test")
+class WarmUpTest {
+
+    @Autowired
+    private WarmUp warmUp;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Test
+    @DisplayName("El nodo sólo acepta tráfico con el calentamiento completado sin errores")
+    void readinessFollowsCompletedWarmUp() {
+        assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+
+        Health health = warmUp.health();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsKeys("pool", "jwt", "bcrypt", "serialization", "jpa", "caches", "http");
+        assertThat(health.getDetails().values()).noneMatch(value -> value.toString().startsWith("error"));
+    }
+}
@@ -1,10 +1,16 @@
 package com.proyecto.spring_back.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.proyecto.spring_back.config.BinaryFormatConfig;
 import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.models.PublicUser;
 import com.proyecto.spring_back.models.UserRequest;
 import com.proyecto.spring_back.models.UserSaveRequest;
+import com.proyecto.spring_back.services.IdempotencyStore;
+import com.proyecto.spring_back.services.UserAvailability;
 import com.proyecto.spring_back.services.UserServiceImpl;
+import com.proyecto.spring_back.services.UserStats;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -12,16 +18,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -29,11 +42,14 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = UserController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import({IdempotencyStore.class, BinaryFormatConfig.class})
 class UserControllerTest {
 
     @Autowired
@@ -45,6 +61,12 @@ class UserControllerTest {
     @MockBean
     private UserServiceImpl userService;
 
+    @MockBean
+    private UserAvailability userAvailability;
+
+    @MockBean
+    private UserStats userStats;
+
     private User buildUser(Long id) {
         User user = new User();
         user.setId(id);
@@ -60,10 +82,18 @@ class UserControllerTest {
     @DisplayName("GET /api/users devuelve lista de usuarios")
     void getAllUsers_returnsList() throws Exception {
         List<User> users = Arrays.asList(buildUser(1L), buildUser(2L));
+        users.forEach(user -> {
+            user.setLastLoginAt(java.time.Instant.now());
+            user.setLoginCount(3L);
+        });
         Mockito.when(userService.getAllUsers()).thenReturn(users);
 
         mockMvc.perform(get("/api/users"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].username", is("johnd")))
+                .andExpect(jsonPath("$[0].lastLoginAt").doesNotExist())
+                .andExpect(jsonPath("$[0].loginCount").doesNotExist());
     }
 
     @Test
@@ -73,12 +103,85 @@ class UserControllerTest {
         Page<User> page = new PageImpl<>(pageContent, PageRequest.of(0, 4), 8);
         Mockito.when(userService.getAllUsers(any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
 
+        pageContent.get(0).setLoginCount(5L);
+
         mockMvc.perform(get("/api/users/page/{page}", 0))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content", hasSize(4)))
+                .andExpect(jsonPath("$.content[0].loginCount").doesNotExist())
                 .andExpect(jsonPath("$.totalElements", is(8)));
     }
 
+    @Test
+    @DisplayName("GET /api/users/page/{page}?count=false devuelve un Slice sin totales")
+    void getAllUsersPaginated_withoutCount_returnsSlice() throws Exception {
+        List<User> sliceContent = Arrays.asList(buildUser(1L), buildUser(2L), buildUser(3L), buildUser(4L));
+        Slice<User> slice = new SliceImpl<>(sliceContent, PageRequest.of(0, 4), true);
+        Mockito.when(userService.getUserSlice(any(org.springframework.data.domain.Pageable.class))).thenReturn(slice);
+
+        mockMvc.perform(get("/api/users/page/{page}", 0).param("count", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(4)))
+                .andExpect(jsonPath("$.last", is(false)))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+        Mockito.verify(userService, Mockito.never()).getAllUsers(any(org.springframework.data.domain.Pageable.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/users/page/{page}?role= pagina sólo los usuarios con ese rol")
+    void getAllUsersPaginated_withRole_returnsRoleMembers() throws Exception {
+        User admin = buildUser(1L);
+        admin.setLoginCount(3L);
+        Page<PublicUser> page = new PageImpl<>(List.of(PublicUser.of(admin)), PageRequest.of(0, 4), 1);
+        Mockito.when(userService.getUsersByRole(eq("ROLE_ADMIN"), any(org.springframework.data.domain.Pageable.class)))
+                .thenReturn(page);
+        Mockito.when(userService.getUsersByRole(eq("ROLE_NOPE"), any(org.springframework.data.domain.Pageable.class)))
+                .thenThrow(new IllegalArgumentException("Rol desconocido: ROLE_NOPE"));
+
+        mockMvc.perform(get("/api/users/page/{page}", 0).param("role", "ROLE_ADMIN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].loginCount").doesNotExist())
+                .andExpect(jsonPath("$.totalElements", is(1)));
+        mockMvc.perform(get("/api/users/page/{page}", 0).param("role", "ROLE_NOPE"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("ROLE_NOPE")));
+        // Sin paginar no se admite: ROLE_USER sería casi toda la tabla
+        mockMvc.perform(get("/api/users").param("role", "ROLE_ADMIN"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("/api/users/page/")));
+        Mockito.verify(userService, Mockito.never()).getAllUsers(any(org.springframework.data.domain.Pageable.class));
+    }
+
+    @Test
+    @DisplayName("GET /api/users/availability informa de username y email; sin ninguno, 400")
+    void availability_reportsEachValue() throws Exception {
+        Mockito.when(userAvailability.checkUsername("johnd")).thenReturn(new UserAvailability.Result(false, true));
+        Mockito.when(userAvailability.checkEmail("new@example.com")).thenReturn(new UserAvailability.Result(true, false));
+
+        mockMvc.perform(get("/api/users/availability").param("username", "johnd").param("email", "new@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable", is(false)))
+                .andExpect(jsonPath("$.emailAvailable", is(true)));
+        mockMvc.perform(get("/api/users/availability").param("username", " "))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(userService, Mockito.never()).getUserById(any());
+    }
+
+    @Test
+    @DisplayName("GET /api/users/stats devuelve los contadores en memoria sin pasar por el servicio")
+    void stats_servedFromCounters() throws Exception {
+        Mockito.when(userStats.stats()).thenReturn(Map.of("total", 3L, "admins", 1L,
+                "roles", Map.of("ROLE_ADMIN", 1L, "ROLE_USER", 3L)));
+
+        mockMvc.perform(get("/api/users/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.admins", is(1)))
+                .andExpect(jsonPath("$.roles.ROLE_USER", is(3)));
+        Mockito.verifyNoInteractions(userService);
+    }
+
     @Test
     @DisplayName("GET /api/users/{id} devuelve 200 cuando existe")
     void getUserById_returnsOk_whenExists() throws Exception {
@@ -89,6 +192,47 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.id", is(1)));
     }
 
+    @Test
+    @DisplayName("GET /api/users/{id} con Accept application/cbor responde en CBOR")
+    void getUserById_withCborAccept_returnsCbor() throws Exception {
+        Mockito.when(userService.getUserById(1L)).thenReturn(Optional.of(buildUser(1L)));
+
+        byte[] body = mockMvc.perform(get("/api/users/{id}", 1L).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        User decoded = new CBORMapper().readValue(body, User.class);
+        assertThat(decoded.getId()).isEqualTo(1L);
+        assertThat(decoded.getUsername()).isEqualTo(buildUser(1L).getUsername());
+    }
+
+    @Test
+    @DisplayName("GET /api/users/{id}?fields= devuelve sólo los campos pedidos")
+    void getUserById_withFields_returnsOnlyThoseFields() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("username", "johnd");
+        Mockito.when(userService.getUserFieldsById(1L, Set.of("id", "username"))).thenReturn(Optional.of(row));
+
+        mockMvc.perform(get("/api/users/{id}", 1L).param("fields", "id, username"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.username", is("johnd")))
+                .andExpect(jsonPath("$.email").doesNotExist());
+        Mockito.verify(userService, Mockito.never()).getUserById(any());
+    }
+
+    @Test
+    @DisplayName("GET /api/users?fields= con un campo fuera de la lista blanca devuelve 400")
+    void getAllUsers_withUnknownField_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/users").param("fields", "id,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("password")));
+        mockMvc.perform(get("/api/users/page/{page}", 0).param("fields", "loginCount"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("GET /api/users/{id} devuelve 404 cuando no existe")
     void getUserById_returnsNotFound_whenDoesNotExist() throws Exception {
@@ -99,6 +243,47 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.error", containsString("User not found")));
     }
 
+    @Test
+    @DisplayName("POST /api/users/lookup separa encontrados y ausentes en una sola consulta")
+    void lookupUsers_returnsFoundAndMissing() throws Exception {
+        Mockito.when(userService.getUsersByIds(any())).thenReturn(List.of(buildUser(3L), buildUser(1L)));
+
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2,3,1]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found[*].id", contains(1, 3)))
+                .andExpect(jsonPath("$.missing", contains(2)));
+        Mockito.verify(userService, Mockito.times(1)).getUsersByIds(Set.of(1L, 2L, 3L));
+    }
+
+    @Test
+    @DisplayName("POST /api/users/lookup rechaza listas vacías o por encima del límite")
+    void lookupUsers_returnsBadRequest_whenEmptyOrTooMany() throws Exception {
+        StringBuilder ids = new StringBuilder("0");
+        for (int i = 1; i <= 100; i++) {
+            ids.append(',').append(i);
+        }
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + ids + "]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[]}"))
+                .andExpect(status().isBadRequest());
+        StringBuilder oversized = new StringBuilder("1");
+        for (int i = 0; i < 5000; i++) {
+            oversized.append(",1");
+        }
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + oversized + "]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.ids").value("Se admiten como mucho 1000 ids por consulta"));
+        Mockito.verify(userService, Mockito.never()).getUsersByIds(any());
+    }
+
     @Test
     @DisplayName("POST /api/users devuelve 201 al crear usuario válido")
     void createUser_returnsCreated_onValidPayload() throws Exception {
@@ -125,6 +310,42 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.id", is(10)));
     }
 
+    @Test
+    @DisplayName("POST /api/users con Idempotency-Key repetida no vuelve a crear el usuario")
+    void createUser_withIdempotencyKey_replaysFirstResponse() throws Exception {
+        String json = "{" +
+                "\"name\":\"Jane\"," +
+                "\"lastname\":\"Roe\"," +
+                "\"username\":\"janer\"," +
+                "\"email\":\"jane.roe@example.com\"," +
+                "\"password\":\"topsecret\"" +
+                "}";
+        Mockito.when(userService.createUser(any(UserSaveRequest.class))).thenReturn(buildUser(11L));
+
+        mockMvc.perform(post("/api/users")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "false"));
+
+        mockMvc.perform(post("/api/users")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is(11)));
+
+        Mockito.verify(userService, Mockito.times(1)).createUser(any(UserSaveRequest.class));
+
+        mockMvc.perform(post("/api/users")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.replace("Jane", "Other")))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     @DisplayName("POST /api/users devuelve 400 al payload inválido")
     void createUser_returnsBadRequest_onInvalidPayload() throws Exception {
@@ -179,17 +400,17 @@ class UserControllerTest {
     @Test
     @DisplayName("DELETE /api/users/{id} devuelve 204 cuando elimina")
     void deleteUser_returnsNoContent_whenDeleted() throws Exception {
-        Mockito.when(userService.getUserById(1L)).thenReturn(Optional.of(buildUser(1L)));
-        Mockito.doNothing().when(userService).deleteById(1L);
+        Mockito.when(userService.deleteById(1L)).thenReturn(true);
 
         mockMvc.perform(delete("/api/users/{id}", 1L))
                 .andExpect(status().isNoContent());
+        Mockito.verify(userService, Mockito.never()).getUserById(any());
     }
 
     @Test
     @DisplayName("DELETE /api/users/{id} devuelve 404 cuando no existe")
     void deleteUser_returnsNotFound_whenDoesNotExist() throws Exception {
-        Mockito.when(userService.getUserById(99L)).thenReturn(Optional.empty());
+        Mockito.when(userService.deleteById(99L)).thenReturn(false);
 
         mockMvc.perform(delete("/api/users/{id}", 99L))
                 .andExpect(status().isNotFound());
@@ -0,0 +1,70 @@
+package com.proyecto.spring_back.fixtures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.entities.User;
+
+/**
+ * Usuario de prueba válido, con los mismos valores por defecto que
+ * {@code UserRepositoryTest.buildUser}: nombre "Name", apellido "Last", email
+ * {@code <username>@example.com}, contraseña "pwd" y sin roles.
+ *
+ * <pre>
+ * User admin = UserFixture.user("ana").roles(userRole, adminRole).build();
+ * </pre>
+ */
+public final class UserFixture {
+
+    private Long id;
+    private String name = "Name";
+    private final String username;
+    private String password = "pwd";
+    private List<Role> roles = List.of();
+
+    private UserFixture(String username) {
+        this.username = username;
+    }
+
+    public static UserFixture user(String username) {
+        return new UserFixture(username);
+    }
+
+    public UserFixture id(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public UserFixture name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public UserFixture password(String password) {
+        this.password = password;
+        return this;
+    }
+
+    public UserFixture roles(Role... roles) {
+        return roles(List.of(roles));
+    }
+
+    public UserFixture roles(List<Role> roles) {
+        this.roles = List.copyOf(roles);
+        return this;
+    }
+
+    /** Entidad nueva en cada llamada (la lista de roles es mutable, como la de JPA). */
+    public User build() {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setLastname("Last");
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword(password);
+        user.setRoles(new ArrayList<>(roles));
+        return user;
+    }
+}
@@ -0,0 +1,78 @@
+package com.proyecto.spring_back.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registro de latencias de un único hilo de carga (sin sincronización).
+ * Al terminar, los registros de todos los hilos se combinan con {@link #merge}.
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private long errors;
+    private final Map<Integer, Long> statuses = new TreeMap<>();
+
+    void record(long latencyNanos, int status, boolean ok) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = latencyNanos;
+        statuses.merge(status, 1L, Long::sum);
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        if (size + other.size > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(samples.length * 2, size + other.size));
+        }
+        System.arraycopy(other.samples, 0, samples, size, other.size);
+        size += other.size;
+        errors += other.errors;
+        other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+    }
+
+    /**
+     * Resume las muestras: throughput, percentiles p50/p99/p999 y códigos HTTP.
+     *
+     * @param elapsedSeconds duración de la ventana medida
+     */
+    Map<String, Object> summarize(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long sample : sorted) {
+            total += sample;
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", size);
+        summary.put("errors", errors);
+        summary.put("throughput", elapsedSeconds > 0 ? size / elapsedSeconds : 0);
+        summary.put("meanMs", size > 0 ? toMillis(total / size) : 0);
+        summary.put("p50Ms", toMillis(percentile(sorted, 0.50)));
+        summary.put("p99Ms", toMillis(percentile(sorted, 0.99)));
+        summary.put("p999Ms", toMillis(percentile(sorted, 0.999)));
+        summary.put("maxMs", size > 0 ? toMillis(sorted[size - 1]) : 0);
+        Map<String, Long> statusCodes = new LinkedHashMap<>();
+        statuses.forEach((status, count) -> statusCodes.put(String.valueOf(status), count));
+        summary.put("statusCodes", statusCodes);
+        return summary;
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.proyecto.spring_back.loadtest;
+
+/**
+ * Operaciones que ejecuta la prueba de carga contra la API real.
+ */
+enum LoadOperation {
+    LOGIN("login"),
+    GET_BY_ID("getById"),
+    PAGE("page"),
+    CREATE("create"),
+    UPDATE("update"),
+    DELETE("delete");
+
+    private final String key;
+
+    LoadOperation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static LoadOperation fromKey(String key) {
+        for (LoadOperation op : values()) {
+            if (op.key.equalsIgnoreCase(key)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Operación desconocida: " + key);
+    }
+}
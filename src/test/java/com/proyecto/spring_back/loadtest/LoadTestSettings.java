@@ -0,0 +1,67 @@
+package com.proyecto.spring_back.loadtest;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba de carga, leídos de propiedades de sistema
+ * (ej: {@code ./mvnw -Ploadtest -Dloadtest.concurrency=32}).
+ *
+ * La mezcla de operaciones se expresa como pesos relativos:
+ * {@code -Dloadtest.mix=login=10,getById=40,page=30,create=10,update=5,delete=5}
+ */
+record LoadTestSettings(
+        int users,
+        int concurrency,
+        int warmupSeconds,
+        int durationSeconds,
+        long seed,
+        Map<LoadOperation, Integer> mix,
+        String reportDirectory) {
+
+    static final String DEFAULT_MIX = "login=10,getById=40,page=30,create=10,update=5,delete=5";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 1000),
+                Integer.getInteger("loadtest.concurrency", 16),
+                Integer.getInteger("loadtest.warmupSeconds", 5),
+                Integer.getInteger("loadtest.durationSeconds", 30),
+                Long.getLong("loadtest.seed", 42L),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                System.getProperty("loadtest.reportDirectory", "target/loadtest"));
+    }
+
+    static Map<LoadOperation, Integer> parseMix(String value) {
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Entrada de mezcla inválida: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(LoadOperation.fromKey(pair[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla de operaciones está vacía");
+        }
+        return mix;
+    }
+
+    /** Representación serializable de la configuración para el informe. */
+    Map<String, Object> describe() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", users);
+        config.put("concurrency", concurrency);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("durationSeconds", durationSeconds);
+        config.put("seed", seed);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((op, weight) -> weights.put(op.key(), weight));
+        config.put("mix", weights);
+        return config;
+    }
+}
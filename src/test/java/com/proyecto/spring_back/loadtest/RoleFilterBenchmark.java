@@ -0,0 +1,167 @@
+package com.proyecto.spring_back.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.proyecto.spring_back.repositories.RoleRepository;
+import com.proyecto.spring_back.repositories.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark del listado filtrado por rol ({@code GET /api/users/page/{page}?role=}).
+ *
+ * Siembra por JDBC {@code -Dbenchmark.users} usuarios (1.000.000 por defecto), todos con
+ * ROLE_USER y un 1% además con ROLE_ADMIN, y mide las consultas del repositorio (primera
+ * página, última página y recuento) de ambos roles con el índice
+ * {@code (role_id, user_id)} de users_roles y después de eliminarlo. Las medianas se
+ * escriben en JSON en {@code target/benchmark/role-filter.json}.
+ *
+ * No forma parte de la suite normal; se ejecuta con {@code ./mvnw -Pbenchmark test}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark.enabled", matches = "true")
+// Sin la caché de resultados de H2, que devolvería la misma consulta sin ejecutarla
+@SpringBootTest(properties = { "app.users.directory.enabled=false", "app.rate-limit.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=0" })
+@ActiveProfiles("test")
+class RoleFilterBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleFilterBenchmark.class);
+
+    private static final String INDEX = "idx_users_roles_role_user";
+    private static final int BATCH = 10_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Test
+    void roleFilter() throws Exception {
+        int users = Integer.getInteger("benchmark.users", 1_000_000);
+        int runs = Integer.getInteger("benchmark.runs", 20);
+        Long userRole = roleId("ROLE_USER");
+        Long adminRole = roleId("ROLE_ADMIN");
+        seed(users, userRole, adminRole);
+
+        long admins = userRepository.findIdPageByRoleId(adminRole, PageRequest.of(0, PAGE_SIZE)).getTotalElements();
+        assertThat(admins).isGreaterThanOrEqualTo(users / 100);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", users);
+        report.put("admins", admins);
+        report.put("runs", runs);
+        // Una pasada completa descartada: la primera medida arrastra JIT y GC de la siembra
+        measure(userRole, adminRole, runs);
+        report.put("withIndex", measure(userRole, adminRole, runs));
+
+        // H2 (como MySQL) indexa por su cuenta la clave foránea role_id; PostgreSQL no. Para
+        // medir la tabla sin ningún índice por role_id se quitan también la FK y su índice.
+        String foreignKey = roleForeignKey();
+        jdbcTemplate.execute("drop index " + INDEX);
+        jdbcTemplate.execute("alter table users_roles drop constraint " + foreignKey);
+        report.put("withoutIndex", measure(userRole, adminRole, runs));
+        jdbcTemplate.execute("alter table users_roles add constraint " + foreignKey
+                + " foreign key (role_id) references roles (id)");
+        jdbcTemplate.execute("create index " + INDEX + " on users_roles (role_id, user_id)");
+
+        Path directory = Path.of(System.getProperty("benchmark.reportDirectory", "target/benchmark"));
+        Files.createDirectories(directory);
+        byte[] json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(report);
+        Path file = directory.resolve("role-filter.json");
+        Files.write(file, json);
+        log.info("Resultados del benchmark escritos en {}", file.toAbsolutePath());
+    }
+
+    private Long roleId(String name) {
+        return roleRepository.findByName(name).orElseGet(() -> {
+            jdbcTemplate.update("insert into roles (name) values (?)", name);
+            return roleRepository.findByName(name).orElseThrow();
+        }).getId();
+    }
+
+    private String roleForeignKey() {
+        return jdbcTemplate.queryForObject("select k.constraint_name from information_schema.key_column_usage k"
+                + " join information_schema.referential_constraints c on c.constraint_name = k.constraint_name"
+                + " where k.table_name = 'USERS_ROLES' and k.column_name = 'ROLE_ID'", String.class);
+    }
+
+    private void seed(int users, Long userRole, Long adminRole) {
+        // username admite 12 caracteres: prefijo "b" + 4 dígitos en base 36 y el índice en base 36
+        long base = 36L * 36 * 36 * 36;
+        String stamp = "b" + Long.toString(base + Instant.now().toEpochMilli() % base, 36).substring(1);
+        for (int from = 0; from < users; from += BATCH) {
+            List<Object[]> rows = new ArrayList<>(BATCH);
+            for (int i = from; i < Math.min(users, from + BATCH); i++) {
+                String username = stamp + "_" + Integer.toString(i, 36);
+                rows.add(new Object[] { "Bench", "Mark", username, username + "@benchmark.local", "x" });
+            }
+            jdbcTemplate.batchUpdate("insert into users (name, lastname, username, email, password) values (?, ?, ?, ?, ?)", rows);
+        }
+        String pattern = stamp + "\\_%";
+        jdbcTemplate.update("insert into users_roles (user_id, role_id) select id, ? from users where username like ?",
+                userRole, pattern);
+        jdbcTemplate.update("insert into users_roles (user_id, role_id) select id, ? from users where username like ? and mod(id, 100) = 0",
+                adminRole, pattern);
+    }
+
+    private Map<String, Object> measure(Long userRole, Long adminRole, int runs) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("indexes", jdbcTemplate.queryForList(
+                "select index_name from information_schema.indexes where table_name = 'USERS_ROLES'", String.class));
+        result.put("ROLE_ADMIN", measure(adminRole, runs));
+        result.put("ROLE_USER", measure(userRole, runs));
+        return result;
+    }
+
+    /** Primera página, última página y recuento (la consulta de {@code ?count=true}). */
+    private Map<String, Object> measure(Long roleId, int runs) {
+        long total = userRepository.findIdPageByRoleId(roleId, PageRequest.of(0, PAGE_SIZE)).getTotalElements();
+        int lastPage = (int) ((total - 1) / PAGE_SIZE);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("firstPageMs", median(runs, () -> userRepository.findIdSliceByRoleId(roleId, PageRequest.of(0, PAGE_SIZE))));
+        result.put("lastPageMs", median(runs, () -> userRepository.findIdSliceByRoleId(roleId, PageRequest.of(lastPage, PAGE_SIZE))));
+        result.put("countMs", median(runs, () -> userRepository.findIdPageByRoleId(roleId, PageRequest.of(0, PAGE_SIZE))));
+        return result;
+    }
+
+    private static double median(int runs, Supplier<?> query) {
+        // Unas ejecuciones previas para que el JIT, el plan y las cachés no cuenten en la medida
+        for (int i = 0; i < 3; i++) {
+            query.get();
+        }
+        double[] samples = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            query.get();
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[runs / 2];
+    }
+}
@@ -0,0 +1,315 @@
+package com.proyecto.spring_back.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga de extremo a extremo sobre la pila HTTP real.
+ *
+ * Arranca la aplicación con el perfil de pruebas (H2 en memoria), siembra N usuarios
+ * con roles y ejecuta una mezcla configurable de login, consulta por id, listado
+ * paginado, alta, actualización y borrado con C hilos concurrentes. El resultado
+ * (throughput y percentiles p50/p99/p999 por operación) se escribe en JSON en
+ * {@code target/loadtest/report.json}.
+ *
+ * No forma parte de la suite normal; se ejecuta con {@code ./mvnw -Ploadtest test}.
+ * La semilla ({@code -Dloadtest.seed}) hace reproducible la secuencia de operaciones.
+ */
+@Tag("loadtest")
+@EnabledIfSystemProperty(named = "loadtest.enabled", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.rate-limit.enabled=false")
+@ActiveProfiles("test")
+class UserApiLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UserApiLoadTest.class);
+    private static final String PASSWORD = "loadtest";
+    private static final String ADMIN_USERNAME = "ltadmin";
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        List<Long> seededIds = seed(settings.users());
+        String adminToken = login(ADMIN_USERNAME);
+        assertThat(adminToken).as("login del administrador sembrado").isNotNull();
+
+        int pages = Math.max(1, (seededIds.size() + 3) / 4);
+        ConcurrentLinkedQueue<Long> created = new ConcurrentLinkedQueue<>();
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(settings.concurrency());
+        List<Future<Map<LoadOperation, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int worker = 0; worker < settings.concurrency(); worker++) {
+            Worker task = new Worker(worker, settings, seededIds, pages, adminToken, created, start, warmupEnd, end);
+            futures.add(executor.submit(task::run));
+        }
+        start.countDown();
+
+        Map<LoadOperation, LatencyRecorder> merged = new EnumMap<>(LoadOperation.class);
+        LatencyRecorder overall = new LatencyRecorder();
+        for (Future<Map<LoadOperation, LatencyRecorder>> future : futures) {
+            future.get().forEach((op, recorder) -> {
+                merged.computeIfAbsent(op, k -> new LatencyRecorder()).merge(recorder);
+                overall.merge(recorder);
+            });
+        }
+        executor.shutdown();
+        // Ventana medida real: desde el fin del calentamiento hasta que responde la última
+        // solicitud, que puede terminar después del plazo configurado
+        double elapsedSeconds = (System.nanoTime() - warmupEnd) / 1e9;
+
+        writeReport(settings, merged, overall, elapsedSeconds);
+        assertThat(overall.summarize(elapsedSeconds).get("count")).isNotEqualTo(0);
+    }
+
+    /**
+     * Siembra los roles y N usuarios mediante inserciones por lotes. Todos comparten
+     * el mismo hash BCrypt, calculado una única vez.
+     */
+    private List<Long> seed(int users) {
+        for (String role : List.of("ROLE_USER", "ROLE_ADMIN")) {
+            Integer exists = jdbcTemplate.queryForObject("select count(*) from roles where name = ?", Integer.class, role);
+            if (exists == null || exists == 0) {
+                jdbcTemplate.update("insert into roles (name) values (?)", role);
+            }
+        }
+        Long userRole = jdbcTemplate.queryForObject("select id from roles where name = 'ROLE_USER'", Long.class);
+        Long adminRole = jdbcTemplate.queryForObject("select id from roles where name = 'ROLE_ADMIN'", Long.class);
+        String hash = passwordEncoder.encode(PASSWORD);
+
+        List<Object[]> rows = new ArrayList<>(users + 1);
+        rows.add(new Object[] { "Admin", "Load", ADMIN_USERNAME, ADMIN_USERNAME + "@loadtest.local", hash });
+        for (int i = 0; i < users; i++) {
+            rows.add(new Object[] { "User" + i, "Load", "lt" + i, "lt" + i + "@loadtest.local", hash });
+        }
+        jdbcTemplate.batchUpdate("insert into users (name, lastname, username, email, password) values (?, ?, ?, ?, ?)", rows);
+
+        jdbcTemplate.update("insert into users_roles (user_id, role_id) select id, ? from users where email like '%@loadtest.local'", userRole);
+        jdbcTemplate.update("insert into users_roles (user_id, role_id) select id, ? from users where username = ?", adminRole, ADMIN_USERNAME);
+        return jdbcTemplate.queryForList("select id from users where username like 'lt%' and username <> ? order by id", Long.class, ADMIN_USERNAME);
+    }
+
+    private String login(String username) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(loginRequest(username), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode() == 200 ? response.headers().firstValue("Authorization").orElse(null) : null;
+    }
+
+    private HttpRequest loginRequest(String username) {
+        String body = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+        return HttpRequest.newBuilder(uri("/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void writeReport(LoadTestSettings settings, Map<LoadOperation, LatencyRecorder> merged,
+            LatencyRecorder overall, double elapsedSeconds) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("config", settings.describe());
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("overall", overall.summarize(elapsedSeconds));
+        Map<String, Object> operations = new LinkedHashMap<>();
+        merged.forEach((op, recorder) -> operations.put(op.key(), recorder.summarize(elapsedSeconds)));
+        report.put("operations", operations);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Path directory = Path.of(settings.reportDirectory());
+        Files.createDirectories(directory);
+        byte[] json = mapper.writeValueAsBytes(report);
+        Path file = directory.resolve("report.json");
+        Files.write(file, json);
+        Files.write(directory.resolve("report-" + System.currentTimeMillis() + ".json"), json);
+        log.info("Informe de carga escrito en {}", file.toAbsolutePath());
+    }
+
+    /**
+     * Hilo de carga: elige operaciones según los pesos con su propio generador
+     * (semilla + índice) y sólo registra latencias pasado el calentamiento.
+     */
+    private final class Worker {
+
+        private final int index;
+        private final Random random;
+        private final LoadTestSettings settings;
+        private final List<Long> seededIds;
+        private final int pages;
+        private final String adminToken;
+        private final ConcurrentLinkedQueue<Long> created;
+        private final CountDownLatch start;
+        private final long warmupEnd;
+        private final long end;
+        private final LoadOperation[] wheel;
+        private final Map<LoadOperation, LatencyRecorder> recorders = new EnumMap<>(LoadOperation.class);
+        private String userToken;
+        private int sequence;
+
+        Worker(int index, LoadTestSettings settings, List<Long> seededIds, int pages, String adminToken,
+                ConcurrentLinkedQueue<Long> created, CountDownLatch start, long warmupEnd, long end) {
+            this.index = index;
+            this.random = new Random(settings.seed() + index);
+            this.settings = settings;
+            this.seededIds = seededIds;
+            this.pages = pages;
+            this.adminToken = adminToken;
+            this.created = created;
+            this.start = start;
+            this.warmupEnd = warmupEnd;
+            this.end = end;
+            List<LoadOperation> slots = new ArrayList<>();
+            settings.mix().forEach((op, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    slots.add(op);
+                }
+            });
+            this.wheel = slots.toArray(new LoadOperation[0]);
+        }
+
+        Map<LoadOperation, LatencyRecorder> run() throws Exception {
+            start.await();
+            userToken = loginWithRetries();
+            while (System.nanoTime() < end) {
+                LoadOperation op = wheel[random.nextInt(wheel.length)];
+                Long deleteId = op == LoadOperation.DELETE ? created.poll() : null;
+                if (op == LoadOperation.DELETE && deleteId == null) {
+                    op = LoadOperation.CREATE;
+                }
+                HttpRequest request = buildRequest(op, deleteId);
+                long begin = System.nanoTime();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                long latency = System.nanoTime() - begin;
+                int status = response.statusCode();
+                if (op == LoadOperation.CREATE && status == 201) {
+                    Matcher matcher = ID_PATTERN.matcher(response.body());
+                    if (matcher.find()) {
+                        created.add(Long.parseLong(matcher.group(1)));
+                    }
+                }
+                if (begin >= warmupEnd) {
+                    recorders.computeIfAbsent(op, k -> new LatencyRecorder())
+                            .record(latency, status, status == expectedStatus(op));
+                }
+            }
+            return recorders;
+        }
+
+        /** Token de un usuario sembrado; sin él las consultas por id no tienen sentido. */
+        private String loginWithRetries() throws IOException, InterruptedException {
+            for (int attempt = 0; attempt < 3; attempt++) {
+                String token = login(randomUsername());
+                if (token != null) {
+                    return token;
+                }
+            }
+            throw new IllegalStateException("El hilo de carga " + index + " no pudo iniciar sesión");
+        }
+
+        private HttpRequest buildRequest(LoadOperation op, Long deleteId) {
+            return switch (op) {
+                case LOGIN -> loginRequest(randomUsername());
+                case GET_BY_ID -> HttpRequest.newBuilder(uri("/api/users/" + randomSeededId()))
+                        .header("Authorization", userToken).GET().build();
+                case PAGE -> HttpRequest.newBuilder(uri("/api/users/page/" + random.nextInt(pages))).GET().build();
+                case CREATE -> {
+                    String username = "c" + Integer.toString(index, 36) + "x" + Integer.toString(sequence++, 36);
+                    yield HttpRequest.newBuilder(uri("/api/users"))
+                            .header("Authorization", adminToken)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(userJson(username, true)))
+                            .build();
+                }
+                case UPDATE -> {
+                    // Los ids sembrados están ordenados, así que la posición i corresponde a "lt" + i
+                    int i = random.nextInt(seededIds.size());
+                    yield HttpRequest.newBuilder(uri("/api/users/" + seededIds.get(i)))
+                            .header("Authorization", adminToken)
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString(userJson("lt" + i, false)))
+                            .build();
+                }
+                case DELETE -> HttpRequest.newBuilder(uri("/api/users/" + deleteId))
+                        .header("Authorization", adminToken).DELETE().build();
+            };
+        }
+
+        private String userJson(String username, boolean withPassword) {
+            return "{\"name\":\"Load\",\"lastname\":\"Test\",\"username\":\"" + username + "\","
+                    + "\"email\":\"" + username + "@loadtest.local\""
+                    + (withPassword ? ",\"password\":\"" + PASSWORD + "\"" : "") + "}";
+        }
+
+        private int expectedStatus(LoadOperation op) {
+            return switch (op) {
+                case CREATE -> 201;
+                case DELETE -> 204;
+                default -> 200;
+            };
+        }
+
+        private long randomSeededId() {
+            return seededIds.get(random.nextInt(seededIds.size()));
+        }
+
+        private String randomUsername() {
+            return "lt" + random.nextInt(settings.users());
+        }
+    }
+}
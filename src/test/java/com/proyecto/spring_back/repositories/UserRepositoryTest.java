@@ -1,6 +1,8 @@
 package com.proyecto.spring_back.repositories;
 
+import com.proyecto.spring_back.entities.Role;
 import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.models.PublicUser;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,9 +11,17 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -24,6 +34,9 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RoleRepository roleRepository;
+
     private User buildUser(String username) {
         User u = new User();
         u.setName("Name");
@@ -69,6 +82,105 @@ class UserRepositoryTest {
         assertThat(page1.getContent().size()).isEqualTo(3);
     }
 
+    @Test
+    @DisplayName("findAllBy(Pageable) retorna slices que indican si hay más resultados")
+    void findAllBy_withPagination_returnsSlices() {
+        for (int i = 0; i < 7; i++) {
+            userRepository.save(buildUser("user_" + i));
+        }
+        Slice<User> slice0 = userRepository.findAllBy(PageRequest.of(0, 4));
+        Slice<User> slice1 = userRepository.findAllBy(PageRequest.of(1, 4));
+
+        assertThat(slice0.getContent().size()).isEqualTo(4);
+        assertThat(slice0.hasNext()).isTrue();
+        assertThat(slice1.getContent().size()).isEqualTo(3);
+        assertThat(slice1.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("findFieldsBy devuelve sólo los campos pedidos y los roles sólo si se piden")
+    void findFieldsBy_returnsRequestedFields() {
+        Role role = roleRepository.save(new Role(null, "ROLE_FIELDS"));
+        for (int i = 0; i < 5; i++) {
+            User user = buildUser("field_" + i);
+            user.setRoles(new ArrayList<>(List.of(role)));
+            userRepository.save(user);
+        }
+
+        Slice<Map<String, Object>> slice = userRepository.findFieldsBy(new LinkedHashSet<>(List.of("username", "id")),
+                PageRequest.of(0, 4));
+        assertThat(slice.getContent()).hasSize(4);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(slice.getContent().get(0)).containsOnlyKeys("username", "id");
+        assertThat(slice.getContent().get(0).keySet()).containsExactly("username", "id");
+
+        Map<String, Object> withRoles = userRepository
+                .findFieldsById((Long) slice.getContent().get(0).get("id"), Set.of("roles")).orElseThrow();
+        assertThat(withRoles).containsOnlyKeys("roles");
+        assertThat((List<?>) withRoles.get("roles")).singleElement()
+                .isEqualTo(new PublicUser.PublicRole(role.getId(), "ROLE_FIELDS"));
+        assertThat(userRepository.findFieldsById(-1L, Set.of("id"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findFieldsBy sin paginar carga los roles de todos los usuarios, por bloques de ids")
+    void findFieldsBy_unpaged_loadsRolesInChunks() {
+        Role role = roleRepository.save(new Role(null, "ROLE_CHUNK"));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < UserRepositoryCustomImpl.ROLES_CHUNK + 3; i++) {
+            User user = buildUser("chunk_" + i);
+            user.setRoles(new ArrayList<>(List.of(role)));
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+
+        List<Map<String, Object>> rows = userRepository
+                .findFieldsBy(new LinkedHashSet<>(List.of("username", "roles")), Pageable.unpaged())
+                .getContent();
+        List<Map<String, Object>> chunked = rows.stream()
+                .filter(row -> ((String) row.get("username")).startsWith("chunk_")).toList();
+        assertThat(chunked).hasSize(UserRepositoryCustomImpl.ROLES_CHUNK + 3)
+                .allSatisfy(row -> assertThat(row.get("roles"))
+                        .isEqualTo(List.of(new PublicUser.PublicRole(role.getId(), "ROLE_CHUNK"))));
+    }
+
+    @Test
+    @DisplayName("findAllWithRolesByIdIn devuelve los usuarios existentes con sus roles")
+    void findAllWithRolesByIdIn_returnsExistingUsersWithRoles() {
+        Role role = roleRepository.save(new Role(null, "ROLE_LOOKUP"));
+        User first = buildUser("lookup_a");
+        first.setRoles(new ArrayList<>(List.of(role)));
+        first = userRepository.save(first);
+        User second = userRepository.save(buildUser("lookup_b"));
+
+        List<User> found = userRepository.findAllWithRolesByIdIn(List.of(first.getId(), second.getId(), -1L));
+
+        assertThat(found).extracting(User::getUsername).containsExactlyInAnyOrder("lookup_a", "lookup_b");
+        assertThat(found).filteredOn(u -> u.getUsername().equals("lookup_a")).singleElement()
+                .satisfies(u -> assertThat(u.getRoles()).extracting(Role::getName).containsExactly("ROLE_LOOKUP"));
+    }
+
+    @Test
+    @DisplayName("findIdPageByRoleId y findIdSliceByRoleId devuelven sólo los ids de los usuarios del rol")
+    void findIdsByRoleId_returnsOnlyMembers() {
+        Role admin = roleRepository.save(new Role(null, "ROLE_FILTER_ADMIN"));
+        Role user = roleRepository.save(new Role(null, "ROLE_FILTER_USER"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            User u = buildUser("role_" + i);
+            u.setRoles(new ArrayList<>(i % 2 == 0 ? List.of(user, admin) : List.of(user)));
+            ids.add(userRepository.save(u).getId());
+        }
+
+        Page<Long> admins = userRepository.findIdPageByRoleId(admin.getId(), PageRequest.of(0, 2));
+        assertThat(admins.getTotalElements()).isEqualTo(3);
+        assertThat(admins.getContent()).containsExactly(ids.get(0), ids.get(2));
+        Slice<Long> lastAdmins = userRepository.findIdSliceByRoleId(admin.getId(), PageRequest.of(1, 2));
+        assertThat(lastAdmins.getContent()).containsExactly(ids.get(4));
+        assertThat(lastAdmins.hasNext()).isFalse();
+        assertThat(userRepository.findIdPageByRoleId(user.getId(), PageRequest.of(0, 10)).getTotalElements()).isEqualTo(6);
+    }
+
     @Test
     @DisplayName("save y findById persisten y recuperan el usuario")
     void save_and_findById_work() {
@@ -105,6 +217,32 @@ class UserRepositoryTest {
         assertThat(userRepository.findById(id)).isNotPresent();
     }
 
+    @Test
+    @DisplayName("softDeleteById oculta el usuario a todas las consultas JPA")
+    void softDeleteById_hidesUserFromQueries() {
+        Role role = roleRepository.save(new Role(null, "ROLE_SOFT"));
+        User kept = buildUser("soft_keep");
+        kept.setRoles(new ArrayList<>(List.of(role)));
+        userRepository.save(kept);
+        User gone = buildUser("soft_gone");
+        gone.setRoles(new ArrayList<>(List.of(role)));
+        Long keptId = kept.getId();
+        Long id = userRepository.save(gone).getId();
+        long before = userRepository.count();
+
+        assertThat(userRepository.softDeleteById(id, Instant.now())).isEqualTo(1);
+        assertThat(userRepository.softDeleteById(id, Instant.now())).isZero();
+
+        assertThat(userRepository.findById(id)).isNotPresent();
+        assertThat(userRepository.existsById(id)).isFalse();
+        assertThat(userRepository.findByUsername("soft_gone")).isNotPresent();
+        assertThat(userRepository.count()).isEqualTo(before - 1);
+        assertThat(userRepository.findAllWithRolesByIdIn(List.of(id))).isEmpty();
+        assertThat(userRepository.findIdPageByRoleId(role.getId(), PageRequest.of(0, 10)).getContent())
+                .containsExactly(keptId);
+        assertThat(userRepository.findFieldsById(id, Set.of("id", "username"))).isNotPresent();
+    }
+
     @Test
     @DisplayName("existsById devuelve true/false correctamente")
     void existsById_true_false() {
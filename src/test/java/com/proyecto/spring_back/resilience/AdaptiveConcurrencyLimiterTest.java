@@ -0,0 +1,76 @@
+package com.proyecto.spring_back.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter buildLimiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(true, initialLimit, 2, 100, 0.5, WINDOW, now::get);
+    }
+
+    /** Simula una ventana completa con el límite ocupado y la latencia indicada. */
+    private void runWindow(AdaptiveConcurrencyLimiter limiter, long rttMillis, boolean dropped) {
+        int concurrent = limiter.getLimit();
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < concurrent; i++) {
+                limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.CRITICAL);
+            }
+            for (int i = 0; i < concurrent; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped);
+            }
+        }
+        now.addAndGet(WINDOW);
+        limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.CRITICAL);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped);
+    }
+
+    @Test
+    @DisplayName("Rechaza por encima del límite y reserva capacidad para solicitudes críticas")
+    void rejectsAboveLimitWithPriorities() {
+        AdaptiveConcurrencyLimiter limiter = buildLimiter(4);
+        assertThat(limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.BEST_EFFORT)).isTrue();
+        assertThat(limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.BEST_EFFORT)).isTrue();
+        // La fracción best-effort (0.5 de 4) ya está ocupada
+        assertThat(limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.BEST_EFFORT)).isFalse();
+        assertThat(limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.CRITICAL)).isTrue();
+        assertThat(limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.CRITICAL)).isTrue();
+        assertThat(limiter.tryAcquire(AdaptiveConcurrencyLimiter.Priority.CRITICAL)).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(4);
+        assertThat(limiter.getRejected(AdaptiveConcurrencyLimiter.Priority.BEST_EFFORT)).isEqualTo(1);
+        assertThat(limiter.getRejected(AdaptiveConcurrencyLimiter.Priority.CRITICAL)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El límite crece con latencia estable y se contrae cuando la latencia sube")
+    void adaptsToLatency() {
+        AdaptiveConcurrencyLimiter limiter = buildLimiter(20);
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, 10, false);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, 200, false);
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown);
+    }
+
+    @Test
+    @DisplayName("Los errores de servidor reducen el límite")
+    void dropsReduceLimit() {
+        AdaptiveConcurrencyLimiter limiter = buildLimiter(40);
+        runWindow(limiter, 10, true);
+        assertThat(limiter.getLimit()).isLessThan(40);
+    }
+}
@@ -0,0 +1,37 @@
+package com.proyecto.spring_back.resilience;
+
+import com.proyecto.spring_back.auth.JwtTokens;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private static MockHttpServletRequest read(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+
+    @Test
+    @DisplayName("Sólo un JWT válido da prioridad crítica a una lectura; cualquier otra cabecera no")
+    void onlyValidTokensPromoteReads() throws Exception {
+        String token = JwtTokens.issue("ana", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        assertThat(ConcurrencyLimitFilter.priorityOf(read("Bearer " + token)))
+                .isEqualTo(AdaptiveConcurrencyLimiter.Priority.CRITICAL);
+        for (String junk : new String[] { null, "x", token, "Bearer ", "Bearer " + token + "x" }) {
+            assertThat(ConcurrencyLimitFilter.priorityOf(read(junk))).as(String.valueOf(junk))
+                    .isEqualTo(AdaptiveConcurrencyLimiter.Priority.BEST_EFFORT);
+        }
+        assertThat(ConcurrencyLimitFilter.priorityOf(new MockHttpServletRequest("POST", "/login")))
+                .isEqualTo(AdaptiveConcurrencyLimiter.Priority.CRITICAL);
+    }
+}
@@ -0,0 +1,161 @@
+package com.proyecto.spring_back.resilience;
+
+import com.proyecto.spring_back.audit.AuthAuditLog;
+import com.proyecto.spring_back.auth.filter.JwtAuthenticationFilter;
+import com.proyecto.spring_back.auth.lockout.LoginAttemptTracker;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.ServletException;
+
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadlineFilterTest {
+
+    private final DeadlineFilter filter = new DeadlineFilter(5000, 3000, 5000, 10000);
+
+    private final DeadlineDataSource dataSource = new DeadlineDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:deadline;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @AfterEach
+    void clearDeadline() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    @DisplayName("El plazo sale de la cabecera (acotada) o del valor por defecto del tipo de solicitud")
+    void resolvesTimeoutFromHeaderOrDefaults() {
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/users");
+        assertThat(filter.timeoutOf(read)).isEqualTo(3000);
+        read.addHeader(DeadlineFilter.HEADER_TIMEOUT, "250");
+        assertThat(filter.timeoutOf(read)).isEqualTo(250);
+
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/api/users");
+        write.addHeader(DeadlineFilter.HEADER_TIMEOUT, "600000");
+        assertThat(filter.timeoutOf(write)).isEqualTo(10000);
+
+        MockHttpServletRequest invalid = new MockHttpServletRequest("DELETE", "/api/users/1");
+        invalid.addHeader(DeadlineFilter.HEADER_TIMEOUT, "abc");
+        assertThat(filter.timeoutOf(invalid)).isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("Un timeout de consulta termina la solicitud con 504 y libera el plazo del hilo")
+    void answersGatewayTimeoutOnQueryTimeout() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            assertThat(RequestDeadline.isSet()).isTrue();
+            throw new ServletException(new QueryTimeoutException("timeout", new SQLTimeoutException()));
+        });
+
+        assertThat(response.getStatus()).isEqualTo(504);
+        assertThat(response.getContentAsString()).contains("Gateway Timeout");
+        assertThat(RequestDeadline.isSet()).isFalse();
+
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest("GET", "/api/users/1"), other,
+                (req, res) -> {
+                    throw new IllegalStateException("otro error");
+                })).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Un login que agota el plazo consultando el usuario responde 504 y no cuenta como fallo")
+    void loginTimeoutIsNotAFailedAttempt() throws Exception {
+        AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+        // Así llega un timeout de loadUserByUsername a través de DaoAuthenticationProvider
+        when(authenticationManager.authenticate(any())).thenThrow(new InternalAuthenticationServiceException(
+                "timeout", new QueryTimeoutException("timeout", new SQLTimeoutException())));
+        LoginAttemptTracker tracker = mock(LoginAttemptTracker.class);
+        JwtAuthenticationFilter login = new JwtAuthenticationFilter(authenticationManager, mock(AuthAuditLog.class), tracker);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setContent("{\"username\":\"ana\",\"password\":\"pw\"}".getBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> login.doFilter(req, res, (r, s) -> {
+            throw new AssertionError("el login no debe seguir la cadena");
+        }));
+
+        assertThat(response.getStatus()).isEqualTo(504);
+        assertThat(response.getContentAsString()).contains("Gateway Timeout");
+        verify(tracker, never()).recordFailure(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("No fija plazo en el flujo SSE ni en las instantáneas")
+    void skipsLongLivedEndpoints() throws Exception {
+        for (String uri : new String[] { "/api/users/changes", "/api/admin/snapshots/a.usnap/restore" }) {
+            filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(),
+                    (req, res) -> assertThat(RequestDeadline.isSet()).isFalse());
+        }
+    }
+
+    @Test
+    @DisplayName("Cada sentencia recibe como timeout el plazo restante y una consulta lenta se cancela")
+    void appliesRemainingBudgetAsQueryTimeout() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement unbounded = connection.createStatement()) {
+            assertThat(unbounded.getQueryTimeout()).isZero();
+        }
+
+        RequestDeadline.start(1500);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            assertThat(statement.getQueryTimeout()).isEqualTo(2);
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> statement.executeQuery("SELECT SUM(X) FROM SYSTEM_RANGE(1, 100000000000)"))
+                    .isInstanceOf(SQLTimeoutException.class);
+            assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(5000);
+        }
+    }
+
+    @Test
+    @DisplayName("Con el plazo agotado falla sin pedir conexión ni preparar sentencias")
+    void failsFastOnceBudgetIsSpent() throws Exception {
+        RequestDeadline.start(1000);
+        try (Connection connection = dataSource.getConnection()) {
+            RequestDeadline.start(-1);
+            assertThatThrownBy(() -> connection.prepareStatement("SELECT 1")).isInstanceOf(SQLTimeoutException.class);
+        }
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTimeoutException.class);
+    }
+
+    @Test
+    @DisplayName("La espera por una conexión del pool termina al vencer el plazo, no el connection-timeout")
+    void boundsPoolWaitByRemainingBudget() throws Exception {
+        HikariDataSource hikari = new HikariDataSource();
+        hikari.setJdbcUrl("jdbc:h2:mem:deadline-pool;DB_CLOSE_DELAY=-1");
+        hikari.setMaximumPoolSize(1);
+        hikari.setConnectionTimeout(30000);
+        DeadlineDataSource pooled = new DeadlineDataSource(hikari);
+        try (Connection busy = pooled.getConnection()) {
+            RequestDeadline.start(500);
+            long start = System.nanoTime();
+            assertThatThrownBy(pooled::getConnection).isInstanceOf(SQLTimeoutException.class);
+            assertThat((System.nanoTime() - start) / 1_000_000).isBetween(400L, 5000L);
+        } finally {
+            hikari.close();
+        }
+    }
+}
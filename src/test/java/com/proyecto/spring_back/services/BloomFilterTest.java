@@ -0,0 +1,41 @@
+package com.proyecto.spring_back.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Sin falsos negativos y con falsos positivos cerca de la tasa objetivo")
+    void noFalseNegativesAndTargetFalsePositiveRate() {
+        int n = 50_000;
+        BloomFilter filter = BloomFilter.create(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put("u:user" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            assertThat(filter.mightContain("u:user" + i)).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < n; i++) {
+            if (filter.mightContain("u:other" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / n).isLessThan(0.02);
+        assertThat(filter.estimatedFpp()).isBetween(0.005, 0.02);
+        // ~9,6 bits por elemento y 7 funciones hash para p = 1%
+        assertThat(filter.hashFunctions()).isEqualTo(7);
+        assertThat(filter.memoryBytes()).isBetween(55_000L, 65_000L);
+    }
+
+    @Test
+    @DisplayName("Rechaza dimensiones inválidas")
+    void rejectsInvalidSizing() {
+        assertThatThrownBy(() -> BloomFilter.create(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(10, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
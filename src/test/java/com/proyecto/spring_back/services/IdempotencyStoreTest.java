@@ -0,0 +1,125 @@
+package com.proyecto.spring_back.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    @Test
+    @DisplayName("Las entradas descartadas por fallo no hacen crecer la cola de expulsión")
+    void failedEntriesDoNotGrowTheQueue() {
+        IdempotencyStore store = new IdempotencyStore(4, 3600, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertThatThrownBy(() -> store.execute("fallo", "h1", () -> {
+                throw new IllegalStateException("fallo");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(store.size()).isZero();
+        assertThat(store.queuedCount()).isZero();
+
+        for (int i = 0; i < 10; i++) {
+            store.execute("k" + i, "h1", () -> "ok");
+        }
+        assertThat(store.size()).isEqualTo(4);
+        assertThat(store.queuedCount()).isEqualTo(4);
+        assertThat(store.execute("k9", "h1", () -> "otra").replayed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Las entradas sustituidas al caducar no hacen crecer la cola de expulsión")
+    void expiredReplacementsDoNotGrowTheQueue() {
+        IdempotencyStore store = new IdempotencyStore(4, 0, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertThat(store.execute("k", "h1", () -> "ok").replayed()).isFalse();
+        }
+        assertThat(store.queuedCount()).isEqualTo(1);
+        store.purgeExpired();
+        assertThat(store.queuedCount()).isZero();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Una ejecución en curso no se expulsa aunque se supere el límite")
+    void pendingEntriesAreNeverEvicted() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(2, 3600, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<IdempotencyStore.Result<String>> first = executor.submit(() -> store.execute("lento", "h1", () -> {
+                started.countDown();
+                await(release);
+                return "ok";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 10; i++) {
+                store.execute("k" + i, "h1", () -> "ok");
+            }
+            assertThat(store.queuedCount()).isEqualTo(2);
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS).replayed()).isFalse();
+            // El reintento encuentra la entrada: no se vuelve a ejecutar
+            assertThat(store.execute("lento", "h1", () -> "duplicado").value()).isEqualTo("ok");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("La huella distingue cuerpos cuyo hashCode coincide")
+    void fingerprintDistinguishesHashCollisions() {
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        assertThat(IdempotencyStore.fingerprint("Aa", "x")).isNotEqualTo(IdempotencyStore.fingerprint("BB", "x"));
+        assertThat(IdempotencyStore.fingerprint("ab", "c")).isNotEqualTo(IdempotencyStore.fingerprint("a", "bc"));
+        assertThat(IdempotencyStore.fingerprint("a", null)).isNotEqualTo(IdempotencyStore.fingerprint("a", "null"));
+
+        IdempotencyStore store = new IdempotencyStore(16, 3600, 1000);
+        store.execute("k", IdempotencyStore.fingerprint("Aa"), () -> "ok");
+        assertThatThrownBy(() -> store.execute("k", IdempotencyStore.fingerprint("BB"), () -> "otro"))
+                .isInstanceOf(IdempotencyStore.KeyReuseException.class);
+    }
+
+    @Test
+    @DisplayName("Un duplicado concurrente deja de esperar tras wait-timeout-ms")
+    void concurrentDuplicateTimesOut() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(16, 3600, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<IdempotencyStore.Result<String>> first = executor.submit(() -> store.execute("k", "h1", () -> {
+                started.countDown();
+                await(release);
+                return "ok";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> store.execute("k", "h1", () -> "duplicado"))
+                    .isInstanceOf(IdempotencyStore.InProgressException.class);
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS).value()).isEqualTo("ok");
+            assertThat(store.execute("k", "h1", () -> "duplicado").value()).isEqualTo("ok");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
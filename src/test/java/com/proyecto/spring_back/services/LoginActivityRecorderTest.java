@@ -0,0 +1,73 @@
+package com.proyecto.spring_back.services;
+
+import com.proyecto.spring_back.fixtures.UserFixture;
+import com.proyecto.spring_back.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(LoginActivityRecorder.class)
+class LoginActivityRecorderTest {
+
+    @Autowired
+    private LoginActivityRecorder recorder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private void saveUser(String username) {
+        userRepository.save(UserFixture.user(username).build());
+    }
+
+    @Test
+    @DisplayName("El UPDATE por username usa un índice, no recorre la tabla")
+    void updateByUsernameUsesIndex() {
+        String plan = jdbcTemplate.queryForObject("explain update users set login_count = 1 where username = 'x'",
+                String.class);
+        assertThat(plan).contains("IDX_USERS_USERNAME");
+    }
+
+    @Test
+    @DisplayName("Combina los logins repetidos de un usuario en una sola fila por vaciado")
+    void coalescesLoginsPerUser() {
+        saveUser("alice");
+        saveUser("bruno");
+        Instant base = Instant.parse("2026-01-01T10:00:00Z");
+        recorder.record("alice", base);
+        recorder.record("alice", base.plus(2, ChronoUnit.MINUTES));
+        recorder.record("alice", base.plus(1, ChronoUnit.MINUTES));
+        recorder.record("bruno", base);
+        assertThat(recorder.pendingCount()).isEqualTo(2);
+
+        recorder.flush();
+        recorder.record("alice", base.plus(5, ChronoUnit.MINUTES));
+        recorder.flush();
+
+        assertThat(recorder.pendingCount()).isZero();
+        assertThat(recorder.flushedRows()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("select login_count from users where username = 'alice'", Long.class))
+                .isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("select last_login_at from users where username = 'alice'", Timestamp.class)
+                .toInstant()).isEqualTo(base.plus(5, ChronoUnit.MINUTES));
+        assertThat(jdbcTemplate.queryForObject("select login_count from users where username = 'bruno'", Long.class))
+                .isEqualTo(1);
+    }
+}
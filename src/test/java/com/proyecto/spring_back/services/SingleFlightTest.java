@@ -0,0 +1,172 @@
+package com.proyecto.spring_back.services;
+
+import com.proyecto.spring_back.resilience.RequestDeadline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Las llamadas concurrentes con la misma clave comparten una sola ejecución")
+    void concurrentCallersShareOneExecution() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>(16);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> flights.execute("page-0", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "resultado";
+                })));
+            }
+            // Espera a que todos los seguidores se hayan unido a la llamada en curso
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flights.getCoalescedCount() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("resultado");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(flights.getCoalescedCount()).isEqualTo(callers - 1);
+        assertThat(flights.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Una vez terminada la llamada, la siguiente vuelve a ejecutar el loader")
+    void completedCallsAreNotCached() {
+        SingleFlight<Long, Integer> flights = new SingleFlight<>(16);
+        AtomicInteger executions = new AtomicInteger();
+        flights.execute(1L, executions::incrementAndGet);
+        assertThat(flights.execute(1L, executions::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Las excepciones del loader se propagan y no dejan la clave bloqueada")
+    void exceptionsPropagate() {
+        SingleFlight<Long, Integer> flights = new SingleFlight<>(16);
+        assertThatThrownBy(() -> flights.execute(1L, () -> {
+            throw new IllegalStateException("fallo");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(flights.inFlightCount()).isZero();
+        assertThat(flights.execute(1L, () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Cada seguidor recibe su propia copia del resultado")
+    void followersReceiveCopies() throws Exception {
+        SingleFlight<String, List<String>> flights = new SingleFlight<>(16, ArrayList::new);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> leader = executor.submit(() -> flights.execute("k", () -> {
+                await(release);
+                return new ArrayList<>(List.of("a"));
+            }));
+            waitUntilInFlight(flights, 1);
+            Future<List<String>> follower = executor.submit(() -> flights.execute("k", () -> List.of("b")));
+            waitUntilCoalesced(flights, 1);
+            release.countDown();
+
+            List<String> leaderResult = leader.get(5, TimeUnit.SECONDS);
+            List<String> followerResult = follower.get(5, TimeUnit.SECONDS);
+            assertThat(followerResult).isEqualTo(leaderResult).isNotSameAs(leaderResult);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Tras forget, la siguiente llamada no se une a la consulta en curso")
+    void forgetDetachesRunningCall() throws Exception {
+        SingleFlight<Long, Integer> flights = new SingleFlight<>(16);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> stale = executor.submit(() -> flights.execute(1L, () -> {
+                await(release);
+                return 1;
+            }));
+            waitUntilInFlight(flights, 1);
+
+            flights.forget(1L);
+            assertThat(flights.execute(1L, () -> 2)).isEqualTo(2);
+            assertThat(flights.getCoalescedCount()).isZero();
+
+            release.countDown();
+            assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(flights.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un seguidor con plazo deja de esperar al agotarlo; el primer hilo sigue")
+    void followerWaitIsBoundedByDeadline() throws Exception {
+        SingleFlight<Long, Integer> flights = new SingleFlight<>(16);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> leader = executor.submit(() -> flights.execute(1L, () -> {
+                await(release);
+                return 1;
+            }));
+            waitUntilInFlight(flights, 1);
+
+            RequestDeadline.start(200);
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> flights.execute(1L, () -> 2)).isInstanceOf(QueryTimeoutException.class);
+            assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(4000);
+
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            RequestDeadline.clear();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void waitUntilInFlight(SingleFlight<?, ?> flights, int keys) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flights.inFlightCount() < keys && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void waitUntilCoalesced(SingleFlight<?, ?> flights, long calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flights.getCoalescedCount() < calls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.proyecto.spring_back.services;
+
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.fixtures.UserFixture;
+import com.proyecto.spring_back.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(UserAvailability.class)
+class UserAvailabilityTest {
+
+    private static final String REBUILD_QUERY = "select username, email from users where deleted_at is null";
+
+    @Autowired
+    private UserAvailability userAvailability;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Username y email se comparan en minúsculas: otra capitalización nunca es un negativo del filtro")
+    void foldsCaseForUsernameAndEmail() {
+        userRepository.save(UserFixture.user("AvCase").build());
+        userAvailability.rebuild();
+
+        for (String username : new String[] { "AvCase", "avcase", "AVCASE" }) {
+            assertThat(userAvailability.checkUsername(username).checkedDatabase()).as(username).isTrue();
+        }
+        for (String email : new String[] { "AvCase@example.com", "avcase@EXAMPLE.COM" }) {
+            assertThat(userAvailability.checkEmail(email).checkedDatabase()).as(email).isTrue();
+        }
+        assertThat(userAvailability.checkUsername("AvCase")).isEqualTo(new UserAvailability.Result(false, true));
+        assertThat(userAvailability.checkUsername("av_free").checkedDatabase()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Un cambio confirmado durante la reconstrucción llega también al filtro nuevo")
+    void changeDuringRebuildReachesNewFilter() {
+        userAvailability.rebuild();
+        // El alta se confirma mientras se leen los usuarios y no aparece en esa lectura
+        User concurrent = UserFixture.user("av_during").build();
+        Mockito.doAnswer(invocation -> {
+            userAvailability.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, concurrent));
+            return invocation.callRealMethod();
+        }).when(jdbcTemplate).query(eq(REBUILD_QUERY), any(RowCallbackHandler.class));
+
+        userAvailability.rebuild();
+
+        assertThat(userAvailability.checkUsername("av_during").checkedDatabase()).isTrue();
+        assertThat(userAvailability.checkEmail("av_during@example.com").checkedDatabase()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Un alta de otra instancia se añade al filtro al recibir su cambio remoto")
+    void remoteChangeAddsUserToFilter() {
+        userAvailability.rebuild();
+        // Escrita por otra instancia: no pasa por UserServiceImpl ni publica UserChangedEvent
+        jdbcTemplate.update("insert into users(name, lastname, username, email, password) values ('N', 'L', 'av_remote', 'av_remote@example.com', 'pwd')");
+        Long id = jdbcTemplate.queryForObject("select id from users where username = 'av_remote'", Long.class);
+        assertThat(userAvailability.checkUsername("av_remote")).isEqualTo(new UserAvailability.Result(true, false));
+
+        userAvailability.onRemoteChange(new RemoteUserChangeEvent(RemoteUserChangeEvent.Type.CREATED, id, "node-b"));
+
+        assertThat(userAvailability.checkUsername("av_remote")).isEqualTo(new UserAvailability.Result(false, true));
+        assertThat(userAvailability.checkEmail("AV_REMOTE@example.com").checkedDatabase()).isTrue();
+    }
+}
@@ -0,0 +1,137 @@
+package com.proyecto.spring_back.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserChangeFeedTest {
+
+    private UserChangeFeed feed;
+
+    @AfterEach
+    void shutdown() {
+        if (feed != null) {
+            feed.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Un cliente que se reconecta recibe las entradas posteriores a su Last-Event-ID")
+    void resumesAfterLastEventId() {
+        feed = new UserChangeFeed(8, 8, 10, 60000);
+        for (int i = 0; i < 5; i++) {
+            feed.publish("updated", Map.of("id", i));
+        }
+
+        assertThat(feed.resume(feed.eventId(2))).extracting(UserChangeFeed.FeedEntry::id).containsExactly(3L, 4L, 5L);
+        assertThat(feed.resume(feed.eventId(5))).isEmpty();
+        assertThat(feed.resume(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Un id que ya salió del buffer o que no existe recibe reset")
+    void resetsWhenIdLeftTheRingOrIsUnknown() {
+        feed = new UserChangeFeed(4, 8, 10, 60000);
+        for (int i = 0; i < 10; i++) {
+            feed.publish("updated", Map.of("id", i));
+        }
+
+        assertThat(feed.resume(feed.eventId(6))).extracting(UserChangeFeed.FeedEntry::id).containsExactly(7L, 8L, 9L, 10L);
+        assertReset(feed.resume(feed.eventId(5)));
+        assertReset(feed.resume(feed.eventId(99)));
+        assertReset(feed.resume(feed.eventId(-3)));
+        assertReset(feed.resume("abc"));
+    }
+
+    @Test
+    @DisplayName("Un id de otra época (otro nodo o anterior a un reinicio) recibe reset")
+    void resetsOnEpochMismatch() {
+        feed = new UserChangeFeed(8, 8, 10, 60000);
+        feed.publish("created", Map.of("id", 1));
+        feed.publish("created", Map.of("id", 2));
+
+        UserChangeFeed otherNode = new UserChangeFeed(8, 8, 10, 60000);
+        try {
+            assertReset(feed.resume(otherNode.eventId(1)));
+            assertReset(feed.resume("1"));
+        } finally {
+            otherNode.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Si lo perdido no cabe en la cola del suscriptor se envía reset")
+    void resetsWhenMissedEntriesExceedQueue() {
+        feed = new UserChangeFeed(16, 2, 10, 60000);
+        for (int i = 0; i < 5; i++) {
+            feed.publish("updated", Map.of("id", i));
+        }
+
+        assertThat(feed.resume(feed.eventId(3))).hasSize(2);
+        assertReset(feed.resume(feed.eventId(1)));
+    }
+
+    @Test
+    @DisplayName("Un suscriptor lento que desborda su cola se cierra sin bloquear a quien publica")
+    void closesSlowSubscriberOnOverflow() throws Exception {
+        feed = new UserChangeFeed(16, 2, 10, 60000);
+        BlockingEmitter emitter = new BlockingEmitter();
+        feed.subscribe(null, emitter);
+        assertThat(feed.subscriberCount()).isEqualTo(1);
+
+        feed.publish("updated", Map.of("id", 1));
+        assertThat(emitter.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        // El hilo del suscriptor está atascado en el primer envío: la cola se llena
+        for (int i = 2; i <= 5; i++) {
+            feed.publish("updated", Map.of("id", i));
+        }
+        emitter.release.countDown();
+
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(feed.subscriberCount()).isZero();
+        assertThat(emitter.sent.get()).isLessThanOrEqualTo(3);
+    }
+
+    private static void assertReset(List<UserChangeFeed.FeedEntry> entries) {
+        assertThat(entries).singleElement().satisfies(entry -> {
+            assertThat(entry.name()).isEqualTo("reset");
+            assertThat(entry.id()).isNegative();
+        });
+    }
+
+    /** Emisor cuyo primer envío se queda esperando, como un cliente que no lee. */
+    private static final class BlockingEmitter extends SseEmitter {
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AtomicInteger sent = new AtomicInteger();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+            super.complete();
+        }
+    }
+}
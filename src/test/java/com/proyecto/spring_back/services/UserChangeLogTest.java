@@ -0,0 +1,110 @@
+package com.proyecto.spring_back.services;
+
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.events.RemoteUserChangeEvent;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(UserChangeLog.class)
+@RecordApplicationEvents
+@TestPropertySource(properties = { "app.users.change-log.node-id=node-a", "app.users.change-log.batch-size=2",
+        "app.users.change-log.gap-timeout-ms=600000", "app.users.change-log.retention-seconds=3600" })
+class UserChangeLogTest {
+
+    @Autowired
+    private UserChangeLog changeLog;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private long base;
+
+    @BeforeEach
+    void catchUp() {
+        changeLog.poll();
+        events.clear();
+        // Las filas de otros tests se deshacen, pero la posición del sondeo no retrocede
+        base = (Long) changeLog.stats().get("highestSeq");
+    }
+
+    private void insert(long seq, Long userId, String type, String node, Instant at) {
+        jdbcTemplate.update("insert into user_change_log (seq, user_id, change_type, node_id, created_at) values (?, ?, ?, ?, ?)",
+                seq, userId, type, node, Timestamp.from(at));
+    }
+
+    @Test
+    @DisplayName("Publica los cambios de otras instancias una sola vez e ignora los propios")
+    void publishesRemoteChangesOnce() {
+        User user = new User();
+        user.setId(7L);
+        changeLog.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, user));
+        Long own = jdbcTemplate.queryForObject(
+                "select seq from user_change_log where user_id = 7 and node_id = 'node-a' and change_type = 'UPDATED'", Long.class);
+        long start = Math.max(base, own);
+        insert(start + 1, 8L, "CREATED", "node-b", Instant.now());
+        insert(start + 2, 9L, "DELETED", "node-b", Instant.now());
+        insert(start + 3, null, "REPLACED", "node-c", Instant.now());
+
+        // batch-size=2: el sondeo sigue leyendo hasta vaciar la cola
+        assertThat(changeLog.poll()).isEqualTo(3);
+        assertThat(events.stream(RemoteUserChangeEvent.class)).containsExactly(
+                new RemoteUserChangeEvent(RemoteUserChangeEvent.Type.CREATED, 8L, "node-b"),
+                new RemoteUserChangeEvent(RemoteUserChangeEvent.Type.DELETED, 9L, "node-b"),
+                new RemoteUserChangeEvent(RemoteUserChangeEvent.Type.REPLACED, null, "node-c"));
+        assertThat(changeLog.poll()).isZero();
+        assertThat(changeLog.stats()).containsEntry("highestSeq", start + 3).containsEntry("ownSkipped", 1L);
+    }
+
+    @Test
+    @DisplayName("Un seq que confirma tarde (hueco) se aplica en un sondeo posterior")
+    void appliesLateCommitsFromGaps() {
+        insert(base + 1, 1L, "UPDATED", "node-b", Instant.now());
+        insert(base + 3, 3L, "UPDATED", "node-b", Instant.now());
+        int pending = (Integer) changeLog.stats().get("pendingGaps");
+        assertThat(changeLog.poll()).isEqualTo(2);
+        assertThat(changeLog.stats()).containsEntry("pendingGaps", pending + 1);
+
+        insert(base + 2, 2L, "UPDATED", "node-b", Instant.now());
+        assertThat(changeLog.poll()).isEqualTo(1);
+        assertThat(events.stream(RemoteUserChangeEvent.class).map(RemoteUserChangeEvent::userId))
+                .containsExactly(1L, 3L, 2L);
+        assertThat(changeLog.stats()).containsEntry("pendingGaps", pending);
+    }
+
+    @Test
+    @DisplayName("La compactación borra sólo las entradas más antiguas que la retención")
+    void compactsEntriesOlderThanRetention() {
+        for (int i = 1; i <= 5; i++) {
+            insert(base + i, (long) i, "UPDATED", "node-b", Instant.now().minusSeconds(7200));
+        }
+        insert(base + 6, 6L, "UPDATED", "node-b", Instant.now());
+        changeLog.poll();
+
+        assertThat(changeLog.compact()).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("select min(seq) from user_change_log", Long.class)).isEqualTo(base + 6);
+        assertThat(changeLog.compact()).isZero();
+    }
+}
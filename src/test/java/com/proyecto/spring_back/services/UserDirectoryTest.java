@@ -0,0 +1,184 @@
+package com.proyecto.spring_back.services;
+
+import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.fixtures.UserFixture;
+import com.proyecto.spring_back.models.PublicUser;
+import com.proyecto.spring_back.repositories.RoleRepository;
+import com.proyecto.spring_back.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(UserDirectory.class)
+class UserDirectoryTest {
+
+    private static final PublicUser.PublicRole ROLE_USER = new PublicUser.PublicRole(1L, "ROLE_USER");
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private static PublicUser publicUser(long id) {
+        return new PublicUser(id, "Name", "Last", "user" + id, "user" + id + "@example.com", List.of(ROLE_USER));
+    }
+
+    private UserDirectory loadedDirectory(long... ids) {
+        UserDirectory directory = new UserDirectory();
+        List<PublicUser> users = new ArrayList<>();
+        for (long id : ids) {
+            users.add(publicUser(id));
+        }
+        directory.replaceAll(users);
+        return directory;
+    }
+
+    private User saveUser(String username, String name) {
+        Role role = roleRepository.findByName("ROLE_USER").orElseGet(() -> roleRepository.save(new Role(null, "ROLE_USER")));
+        User user = userRepository.save(UserFixture.user(username).name(name).roles(role).build());
+        entityManager.flush();
+        return user;
+    }
+
+    /** Copia del usuario tal como la llevaría un evento publicado en ese momento. */
+    private static User copy(User user) {
+        return UserFixture.user(user.getUsername()).id(user.getId()).name(user.getName()).roles(user.getRoles()).build();
+    }
+
+    private void rename(User user, String name) {
+        jdbcTemplate.update("update users set name = ? where id = ?", name, user.getId());
+    }
+
+    private void softDelete(User user) {
+        jdbcTemplate.update("update users set deleted_at = ? where id = ?", Instant.now(), user.getId());
+    }
+
+    private Optional<PublicUser> find(Long id) {
+        return userDirectory.findAll().stream().filter(user -> user.id().equals(id)).findFirst();
+    }
+
+    @Test
+    @DisplayName("No está listo hasta la carga inicial e ignora cambios previos")
+    void notLoadedUntilInitialLoad() {
+        UserDirectory directory = new UserDirectory();
+        directory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED,
+                UserFixture.user("user1").id(1L).build()));
+        assertThat(directory.isLoaded()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Los cambios confirmados se aplican manteniendo el orden por id")
+    void appliesChangesInIdOrder() {
+        User first = saveUser("dir_a", "Name");
+        User changed = saveUser("dir_b", "Name");
+        User deleted = saveUser("dir_c", "Name");
+        userDirectory.load();
+        List<PublicUser> before = userDirectory.findAll();
+
+        User created = saveUser("dir_d", "Nuevo");
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, copy(created)));
+        rename(changed, "Cambiado");
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, copy(changed)));
+        softDelete(deleted);
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.DELETED, copy(deleted)));
+
+        List<PublicUser> ours = userDirectory.findAll().stream().filter(user -> user.username().startsWith("dir_")).toList();
+        assertThat(ours).extracting(PublicUser::id).containsExactly(first.getId(), changed.getId(), created.getId());
+        assertThat(ours).extracting(PublicUser::name).containsExactly("Name", "Cambiado", "Nuevo");
+        // Las lecturas previas conservan su instantánea
+        assertThat(before).extracting(PublicUser::id).contains(deleted.getId()).doesNotContain(created.getId());
+    }
+
+    @Test
+    @DisplayName("Dos ediciones cuyos eventos llegan en orden inverso dejan los datos de la última")
+    void outOfOrderUpdatesKeepCommittedData() {
+        User user = saveUser("dir_race", "V1");
+        userDirectory.load();
+        User first = copy(user);
+        rename(user, "V2");
+        user.setName("V2");
+        User second = copy(user);
+
+        // El listener del segundo commit se ejecuta antes que el del primero
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, second));
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, first));
+
+        assertThat(find(user.getId())).get().extracting(PublicUser::name).isEqualTo("V2");
+    }
+
+    @Test
+    @DisplayName("Una edición que leyó al usuario antes de un borrado no lo resucita")
+    void staleUpdateAfterDeleteDoesNotRestoreUser() {
+        User user = saveUser("dir_gone", "Name");
+        userDirectory.load();
+        User stale = copy(user);
+        softDelete(user);
+
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.DELETED, copy(user)));
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, stale));
+
+        assertThat(find(user.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Pagina sobre la instantánea con totales exactos o como slice")
+    void pagesAndSlices() {
+        UserDirectory directory = loadedDirectory(1, 2, 3, 4, 5, 6, 7);
+
+        Page<PublicUser> page1 = directory.page(PageRequest.of(1, 4));
+        assertThat(page1.getContent()).extracting(PublicUser::id).containsExactly(5L, 6L, 7L);
+        assertThat(page1.getTotalElements()).isEqualTo(7);
+
+        Slice<PublicUser> slice0 = directory.slice(PageRequest.of(0, 4));
+        assertThat(slice0.hasNext()).isTrue();
+        assertThat(directory.slice(PageRequest.of(1, 4)).hasNext()).isFalse();
+        assertThat(directory.page(PageRequest.of(5, 4)).getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Informa del tamaño estimado en memoria")
+    void reportsFootprint() {
+        saveUser("dir_fp1", "Name");
+        userDirectory.load();
+        long updates = (Long) userDirectory.footprint().get("incrementalUpdates");
+        User created = saveUser("dir_fp2", "Otro");
+        userDirectory.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, copy(created)));
+
+        assertThat(userDirectory.footprint())
+                .containsEntry("users", userDirectory.findAll().size())
+                .containsEntry("incrementalUpdates", updates + 1)
+                .hasEntrySatisfying("estimatedBytes", bytes -> assertThat((Long) bytes).isPositive());
+    }
+}
@@ -0,0 +1,79 @@
+package com.proyecto.spring_back.services;
+
+import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.fixtures.UserFixture;
+import com.proyecto.spring_back.repositories.RoleRepository;
+import com.proyecto.spring_back.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(UserPurger.class)
+@TestPropertySource(properties = { "app.users.purge.batch-size=2", "app.users.purge.max-batches=10",
+        "app.users.purge.pause-ms=0", "app.users.purge.grace-period-seconds=60" })
+class UserPurgerTest {
+
+    @Autowired
+    private UserPurger purger;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long saveUser(String username, Role role) {
+        return userRepository.save(UserFixture.user(username).roles(role).build()).getId();
+    }
+
+    private int rows(String sql, Long id) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, id);
+    }
+
+    @Test
+    @DisplayName("Borra por lotes los usuarios y sus roles pasado el periodo de gracia")
+    void purgesSoftDeletedUsersInBatches() {
+        Role role = roleRepository.save(new Role(null, "ROLE_PURGE"));
+        Long kept = saveUser("purge_kept", role);
+        List<Long> old = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Long id = saveUser("purge_" + i, role);
+            userRepository.softDeleteById(id, Instant.now().minusSeconds(120));
+            old.add(id);
+        }
+        Long recent = saveUser("purge_new", role);
+        userRepository.softDeleteById(recent, Instant.now());
+
+        assertThat(purger.purge()).isEqualTo(5);
+
+        for (Long id : old) {
+            assertThat(rows("select count(*) from users where id = ?", id)).isZero();
+            assertThat(rows("select count(*) from users_roles where user_id = ?", id)).isZero();
+        }
+        // Dentro del periodo de gracia: sigue la fila, oculta a JPA
+        assertThat(rows("select count(*) from users where id = ?", recent)).isEqualTo(1);
+        assertThat(rows("select count(*) from users_roles where user_id = ?", recent)).isEqualTo(1);
+        assertThat(userRepository.findById(kept)).isPresent();
+        assertThat(purger.purge()).isZero();
+        assertThat(purger.purgedUsers()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,119 @@
+package com.proyecto.spring_back.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserResponseCacheTest {
+
+    private UserResponseCache buildCache(long maxBytes) {
+        UserResponseCache cache = new UserResponseCache(maxBytes);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+        return cache;
+    }
+
+    @Test
+    @DisplayName("Serializa una vez por versión y sirve los mismos bytes después")
+    void serializesOncePerVersion() {
+        UserResponseCache cache = buildCache(1 << 20);
+        AtomicInteger serializations = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            ResponseEntity<byte[]> response = cache.respond("page:0:true", 1, () -> {
+                serializations.incrementAndGet();
+                return Map.of("content", List.of("a", "b"));
+            }, false, null);
+            assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("{\"content\":[\"a\",\"b\"]}");
+        }
+        assertThat(serializations).hasValue(1);
+
+        cache.respond("page:0:true", 2, () -> {
+            serializations.incrementAndGet();
+            return Map.of("content", List.of());
+        }, false, null);
+        assertThat(serializations).hasValue(2);
+        assertThat(cache.stats()).containsEntry("entries", 1).containsEntry("version", 2L);
+    }
+
+    @Test
+    @DisplayName("Sirve la variante gzip y responde 304 a un ETag vigente")
+    void servesGzipAndNotModified() throws Exception {
+        UserResponseCache cache = buildCache(1 << 20);
+        ResponseEntity<byte[]> gzip = cache.respond("all", 7, () -> List.of("x"), true, null);
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("[\"x\"]");
+        }
+
+        String etag = gzip.getHeaders().getETag();
+        ResponseEntity<byte[]> notModified = cache.respond("all", 7, () -> List.of("x"), true, etag);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cache.respond("all", 7, () -> List.of("x"), false, etag).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    @DisplayName("El ETag depende sólo del contenido, no de la versión local ni del arranque")
+    void etagIsDerivedFromContent() {
+        UserResponseCache cache = buildCache(1 << 20);
+        String first = cache.respond("page:0:true", 1, () -> List.of("a"), false, null).getHeaders().getETag();
+
+        // Otra instancia (o la misma tras reiniciar) con otra numeración de versiones
+        UserResponseCache restarted = buildCache(1 << 20);
+        String same = restarted.respond("page:0:true", 42, () -> List.of("a"), false, null).getHeaders().getETag();
+        String changed = restarted.respond("page:0:true", 43, () -> List.of("b"), false, null).getHeaders().getETag();
+
+        assertThat(same).isEqualTo(first);
+        assertThat(changed).isNotEqualTo(first);
+        assertThat(restarted.respond("page:0:true", 44, () -> List.of("a"), false, first).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    @DisplayName("Expulsa las entradas menos usadas al superar el total de bytes")
+    void evictsLeastRecentlyUsedByBytes() {
+        UserResponseCache cache = buildCache(800);
+        String payload = "x".repeat(40);
+        for (int i = 0; i < 30; i++) {
+            cache.respond("k" + i, 1, () -> payload, false, null);
+            // "k0" se usa en cada vuelta y debe sobrevivir a la expulsión
+            cache.respond("k0", 1, () -> payload, false, null);
+        }
+
+        Map<String, Object> stats = cache.stats();
+        assertThat((Long) stats.get("bytes")).isLessThanOrEqualTo(800);
+        assertThat((Integer) stats.get("entries")).isLessThan(30);
+        AtomicInteger reserialized = new AtomicInteger();
+        cache.respond("k0", 1, () -> {
+            reserialized.incrementAndGet();
+            return payload;
+        }, false, null);
+        assertThat(reserialized).hasValue(0);
+        cache.respond("k1", 1, () -> {
+            reserialized.incrementAndGet();
+            return payload;
+        }, false, null);
+        assertThat(reserialized).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Sólo usa la caché cuando la respuesta negociada es JSON")
+    void acceptsJsonOnlyWhenJsonIsPreferred() {
+        assertThat(UserResponseCache.acceptsJson(null)).isTrue();
+        assertThat(UserResponseCache.acceptsJson("*/*")).isTrue();
+        assertThat(UserResponseCache.acceptsJson("application/json")).isTrue();
+        assertThat(UserResponseCache.acceptsJson("application/cbor")).isFalse();
+        assertThat(UserResponseCache.acceptsJson("application/x-jackson-smile, */*;q=0.1")).isFalse();
+    }
+}
@@ -0,0 +1,103 @@
+package com.proyecto.spring_back.services;
+
+import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.events.UserChangedEvent;
+import com.proyecto.spring_back.fixtures.UserFixture;
+import com.proyecto.spring_back.repositories.RoleRepository;
+import com.proyecto.spring_back.repositories.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ UserStats.class, UserCountCache.class })
+class UserStatsTest {
+
+    @Autowired
+    private UserStats userStats;
+
+    @Autowired
+    private UserCountCache userCountCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User saveUser(String username, Role... roles) {
+        return userRepository.save(UserFixture.user(username).roles(roles).build());
+    }
+
+    /** Entrega el cambio a los dos componentes, como haría el evento tras el commit. */
+    private void changed(UserChangedEvent event) {
+        userStats.onUserChanged(event);
+        userCountCache.onUserChanged(event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long role(Map<String, Object> stats, String name) {
+        return ((Map<String, Long>) stats.get("roles")).getOrDefault(name, 0L);
+    }
+
+    @Test
+    @DisplayName("Los ajustes por alta, cambio de roles y baja coinciden con una reconciliación")
+    void incrementalUpdatesMatchReconciliation() {
+        Role user = roleRepository.findByName("ROLE_USER").orElseGet(() -> roleRepository.save(new Role(null, "ROLE_USER")));
+        Role admin = roleRepository.findByName("ROLE_ADMIN").orElseGet(() -> roleRepository.save(new Role(null, "ROLE_ADMIN")));
+        saveUser("stats_a", user);
+        entityManager.flush();
+        userStats.reconcile();
+        userCountCache.reconcile();
+        Map<String, Object> before = userStats.stats();
+        long total = (Long) before.get("total");
+        long users = role(before, "ROLE_USER");
+        long admins = (Long) before.get("admins");
+
+        User created = saveUser("stats_b", user);
+        changed(new UserChangedEvent(UserChangedEvent.Type.CREATED, created));
+        created.setRoles(new ArrayList<>(List.of(user, admin)));
+        userRepository.save(created);
+        changed(new UserChangedEvent(UserChangedEvent.Type.UPDATED, created, List.of("ROLE_USER")));
+        User deleted = saveUser("stats_c", user, admin);
+        changed(new UserChangedEvent(UserChangedEvent.Type.CREATED, deleted));
+        entityManager.flush();
+        jdbcTemplate.update("update users set deleted_at = ? where id = ?", Instant.now(), deleted.getId());
+        changed(new UserChangedEvent(UserChangedEvent.Type.DELETED, deleted));
+
+        Map<String, Object> after = userStats.stats();
+        assertThat(after.get("total")).isEqualTo(total + 1);
+        assertThat(role(after, "ROLE_USER")).isEqualTo(users + 1);
+        assertThat(after.get("admins")).isEqualTo(admins + 1);
+
+        // La reconciliación cuenta por JDBC: antes se vuelca el contexto de persistencia
+        entityManager.flush();
+        userStats.reconcile();
+        userCountCache.reconcile();
+        assertThat(userStats.stats()).containsEntry("total", total + 1).containsEntry("admins", admins + 1)
+                .containsEntry("lastDrift", 0L);
+    }
+}
@@ -0,0 +1,150 @@
+package com.proyecto.spring_back.snapshot;
+
+import com.proyecto.spring_back.entities.Role;
+import com.proyecto.spring_back.entities.User;
+import com.proyecto.spring_back.fixtures.UserFixture;
+import com.proyecto.spring_back.repositories.RoleRepository;
+import com.proyecto.spring_back.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Sin transacción de test: la restauración confirma su propia transacción y, en H2,
+// el ajuste de la identidad es DDL
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(UserSnapshotService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserSnapshotServiceTest {
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("app.snapshot.directory", directory::toString);
+        registry.add("app.snapshot.batch-size", () -> 2);
+    }
+
+    @Autowired
+    private UserSnapshotService snapshotService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from users_roles");
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("delete from roles");
+    }
+
+    private User saveUser(String username, List<Role> roles) {
+        return userRepository.save(UserFixture.user(username).password("$2a$10$hash-" + username).roles(roles).build());
+    }
+
+    private List<Map<String, Object>> dump() {
+        return jdbcTemplate.queryForList("select u.id, u.username, u.email, u.password, u.login_count, ur.role_id"
+                + " from users u left join users_roles ur on ur.user_id = u.id order by u.id, ur.role_id");
+    }
+
+    @Test
+    @DisplayName("Exporta y restaura users, roles y users_roles con ids y hashes intactos")
+    void exportAndRestoreRoundTrip() throws Exception {
+        Role user = roleRepository.save(new Role(null, "ROLE_USER"));
+        Role admin = roleRepository.save(new Role(null, "ROLE_ADMIN"));
+        saveUser("snap_a", List.of(user));
+        saveUser("snap_b", List.of(user, admin));
+        saveUser("snap_c", List.of(user));
+        Long deleted = saveUser("snap_del", List.of(user)).getId();
+        jdbcTemplate.update("update users set deleted_at = ? where id = ?", java.sql.Timestamp.from(Instant.now()), deleted);
+        jdbcTemplate.update("update users set login_count = 7, last_login_at = ? where username = 'snap_a'",
+                java.sql.Timestamp.from(Instant.parse("2026-01-01T00:00:00Z")));
+        List<Map<String, Object>> before = jdbcTemplate.queryForList(
+                "select u.id, u.username, u.email, u.password, u.login_count, ur.role_id from users u"
+                        + " left join users_roles ur on ur.user_id = u.id where u.deleted_at is null order by u.id, ur.role_id");
+
+        UserSnapshotService.Summary exported = snapshotService.export("round-trip.usnap");
+        assertThat(exported.roles()).isEqualTo(2);
+        assertThat(exported.users()).isEqualTo(3);
+        assertThat(exported.userRoles()).isEqualTo(4);
+
+        // Cambios posteriores que la restauración debe descartar
+        saveUser("snap_new", List.of(admin));
+        jdbcTemplate.update("delete from users_roles where role_id = ?", admin.getId());
+
+        UserSnapshotService.Summary restored = snapshotService.restore("round-trip.usnap");
+        assertThat(restored.users()).isEqualTo(3);
+        assertThat(restored.rowsPerSecond()).isPositive();
+        assertThat(dump()).isEqualTo(before);
+        assertThat(jdbcTemplate.queryForObject("select last_login_at from users where username = 'snap_a'",
+                java.sql.Timestamp.class).toInstant()).isEqualTo(Instant.parse("2026-01-01T00:00:00Z"));
+
+        // El generador de ids continúa tras el máximo restaurado
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from users", Long.class);
+        assertThat(saveUser("snap_after", List.of(user)).getId()).isGreaterThan(maxId);
+        assertThat(snapshotService.list()).extracting(entry -> entry.get("name")).containsExactly("round-trip.usnap");
+    }
+
+    @Test
+    @DisplayName("Rechaza ficheros que no son instantáneas y los corruptos sin tocar los datos")
+    void rejectsInvalidFiles() throws Exception {
+        Role user = roleRepository.save(new Role(null, "ROLE_USER"));
+        saveUser("snap_keep", List.of(user));
+        snapshotService.export("valid.usnap");
+
+        Files.write(directory.resolve("garbage.usnap"), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14 });
+        assertThatThrownBy(() -> snapshotService.restore("garbage.usnap"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        byte[] valid = Files.readAllBytes(directory.resolve("valid.usnap"));
+        Files.write(directory.resolve("truncated.usnap"), java.util.Arrays.copyOf(valid, valid.length / 2));
+        assertThatThrownBy(() -> snapshotService.restore("truncated.usnap"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Instantánea truncada");
+
+        byte[] notGzip = valid.clone();
+        notGzip[UserSnapshotService.HEADER_BYTES] ^= 0x7F;
+        Files.write(directory.resolve("not-gzip.usnap"), notGzip);
+        assertThatThrownBy(() -> snapshotService.restore("not-gzip.usnap"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Instantánea corrupta");
+
+        byte[] badDeflate = valid.clone();
+        // Tipo de bloque deflate reservado (11) en el primer bloque tras la cabecera gzip de 10 bytes
+        badDeflate[UserSnapshotService.HEADER_BYTES + 10] = 0x07;
+        Files.write(directory.resolve("bad-deflate.usnap"), badDeflate);
+        assertThatThrownBy(() -> snapshotService.restore("bad-deflate.usnap"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Instantánea corrupta");
+        assertThat(userRepository.findByUsername("snap_keep")).isPresent();
+
+        assertThatThrownBy(() -> snapshotService.resolve("../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
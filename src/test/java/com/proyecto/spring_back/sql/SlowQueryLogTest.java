@@ -0,0 +1,74 @@
+package com.proyecto.spring_back.sql;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SlowQueryLogTest {
+
+    @Test
+    @DisplayName("La huella ignora literales, mayúsculas, espacios y el tamaño de las listas IN")
+    void fingerprintNormalizesValues() {
+        String a = SqlFingerprint.of("SELECT * FROM users  WHERE id IN (1, 2, 3) AND name = 'O''Brien' -- x");
+        String b = SqlFingerprint.of("select * from users where id in (42) and name = 'ana'");
+        String c = SqlFingerprint.of("select * from users where id in (4,5) and name = ?");
+
+        assertThat(a).isEqualTo("select * from users where id in (?+) and name = ?");
+        assertThat(c).isEqualTo(a);
+        assertThat(b).isEqualTo(a);
+        assertThat(SqlFingerprint.of("select * from users where lower(username) = lower('Ana') and id not in (7)"))
+                .isEqualTo("select * from users where lower(username) = lower(?) and id not in (?+)");
+        assertThat(SqlFingerprint.of("select u1_0.id from users u1_0 limit 5"))
+                .isEqualTo("select u1_0.id from users u1_0 limit ?");
+    }
+
+    @Test
+    @DisplayName("Agrega ejecuciones por huella y acota el número de huellas")
+    void aggregatesPerFingerprint() {
+        SlowQueryLog log = new SlowQueryLog(200, 0, 2);
+        log.record("select * from users where id = 1", TimeUnit.MILLISECONDS.toNanos(10), false);
+        log.record("select * from users where id = 2", TimeUnit.MILLISECONDS.toNanos(30), true);
+        log.record("delete from roles where id = 3", TimeUnit.MILLISECONDS.toNanos(5), false);
+        log.record("update roles set name = 'x'", TimeUnit.MILLISECONDS.toNanos(1), false);
+
+        List<SlowQueryLog.FingerprintStats> top = log.top(10, "total");
+        assertThat(top).hasSize(3);
+        SlowQueryLog.FingerprintStats first = top.get(0);
+        assertThat(first.fingerprint()).isEqualTo("select * from users where id = ?");
+        assertThat(first.count()).isEqualTo(2);
+        assertThat(first.errors()).isEqualTo(1);
+        assertThat(first.totalMs()).isEqualTo(40.0);
+        assertThat(first.maxMs()).isEqualTo(30.0);
+        assertThat(top).extracting(SlowQueryLog.FingerprintStats::fingerprint).contains(SlowQueryLog.OVERFLOW);
+    }
+
+    @Test
+    @DisplayName("TimedDataSource mide sentencias preparadas, simples y fallidas")
+    void timedDataSourceRecordsExecutions() {
+        SlowQueryLog log = new SlowQueryLog(200, 0, 100);
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:slowlog;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(new TimedDataSource(h2, log));
+
+        jdbc.execute("create table t (id int)");
+        jdbc.update("insert into t values (?)", 1);
+        jdbc.update("insert into t values (?)", 2);
+        assertThat(jdbc.queryForObject("select count(*) from t where id > ?", Integer.class, 0)).isEqualTo(2);
+        assertThatThrownBy(() -> jdbc.queryForList("select nope from t")).isNotNull();
+
+        assertThat(log.top(10, "count"))
+                .extracting(SlowQueryLog.FingerprintStats::fingerprint, SlowQueryLog.FingerprintStats::count)
+                .startsWith(tuple("insert into t values (?)", 2L));
+        assertThat(log.top(10, "count")).anySatisfy(stats -> {
+            assertThat(stats.fingerprint()).isEqualTo("select nope from t");
+            assertThat(stats.errors()).isEqualTo(1);
+        });
+    }
+}